@@ -0,0 +1,298 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An ArraySegmentStore is a SegmentStore that keeps its columns in
+ * primitive arrays on the Java heap.
+ * <p>
+ * ArraySegmentStores are mutable: points and segments can be added to them,
+ * but never removed or changed, so ids stay valid. A point costs 8 bytes and
+ * a segment 12 bytes, plus the spare capacity of the arrays, compared to
+ * the object headers and references of GeoPoints and GeoSegments.
+ *
+ * @see homework1.SegmentStore
+ **/
+public class ArraySegmentStore extends SegmentStore {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	// point columns, indexed by point id.
+	private int[] latitudes;
+	private int[] longitudes;
+	private int pointCount;
+
+	// segment columns, indexed by segment id.
+	private int[] p1Ids;
+	private int[] p2Ids;
+	private int[] nameIds;
+	private int segmentCount;
+
+	// the name dictionary, and the id of every name in it.
+	private String[] names;
+	private int nameCount;
+	private final HashMap<String, Integer> nameIdsByName;
+
+	// the id of every point added through addSegment(GeoSegment).
+	private final PointIdMap pointIdsByPoint;
+
+	// Abstraction function: points[i] = (latitudes[i], longitudes[i]) for
+	// 0 <= i < pointCount, segments[i] = (names[nameIds[i]], points[p1Ids[i]],
+	// points[p2Ids[i]]) for 0 <= i < segmentCount, and names = names[0..nameCount-1].
+	//
+	// Representation invariant: 0 <= pointCount <= latitudes.length = longitudes.length &&
+	// 0 <= segmentCount <= p1Ids.length = p2Ids.length = nameIds.length &&
+	// every p1Ids[i], p2Ids[i] is a point id && every nameIds[i] is a name id &&
+	// nameIdsByName maps every names[i] to i.
+
+
+	/**
+	 * Constructs a new ArraySegmentStore.
+	 * @effects Constructs a new, empty ArraySegmentStore.
+	 **/
+	public ArraySegmentStore() {
+		latitudes = new int[INITIAL_CAPACITY];
+		longitudes = new int[INITIAL_CAPACITY];
+		p1Ids = new int[INITIAL_CAPACITY];
+		p2Ids = new int[INITIAL_CAPACITY];
+		nameIds = new int[INITIAL_CAPACITY];
+		names = new String[INITIAL_CAPACITY];
+		nameIdsByName = new HashMap<>();
+		pointIdsByPoint = new PointIdMap(INITIAL_CAPACITY);
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Constructs a new ArraySegmentStore.
+	 * @requires segments != null && segments does not contain null
+	 * @effects Constructs a new ArraySegmentStore holding segments, in
+	 *          order, and their distinct endpoints.
+	 **/
+	public ArraySegmentStore(GeoSegment[] segments) {
+		this();
+		for (GeoSegment segment: segments) {
+			addSegment(segment);
+		}
+	}
+
+
+	/**
+	 * Makes a copy of a SegmentStore in Hilbert order.
+	 * @requires source != null
+	 * @return a new ArraySegmentStore holding the points, segments and names
+	 *         of source, with the points numbered in the Hilbert order of
+	 *         their locations (see SpaceFillingCurve) and the segments
+	 *         numbered in the order of their new p1 ids, then p2 ids, so
+	 *         that data close on the ground is close in memory.
+	 **/
+	public static ArraySegmentStore inHilbertOrder(SegmentStore source) {
+		int pointCount = source.getPointCount();
+		int[] pointOrder = SpaceFillingCurve.hilbertOrder(pointCount, source::getLatitude,
+														  source::getLongitude);
+		int[] newPointIds = new int[pointCount];
+		ArraySegmentStore store = new ArraySegmentStore();
+		for (int p = 0; p < pointCount; p++) {
+			newPointIds[pointOrder[p]] = p;
+			store.addPoint(source.getLatitude(pointOrder[p]), source.getLongitude(pointOrder[p]));
+		}
+
+		// counting sort of the segments by new p1 id, then insertion sort of
+		// the few segments of every p1 by new p2 id; both keep ties in order.
+		int segmentCount = source.getSegmentCount();
+		int[] start = new int[pointCount + 1];
+		for (int s = 0; s < segmentCount; s++) {
+			start[newPointIds[source.getP1Id(s)] + 1]++;
+		}
+		for (int p = 0; p < pointCount; p++) {
+			start[p + 1] += start[p];
+		}
+		int[] segmentOrder = new int[segmentCount];
+		int[] next = Arrays.copyOf(start, pointCount);
+		for (int s = 0; s < segmentCount; s++) {
+			int p1 = newPointIds[source.getP1Id(s)];
+			int position = next[p1]++;
+			int p2 = newPointIds[source.getP2Id(s)];
+			while (position > start[p1] && newPointIds[source.getP2Id(segmentOrder[position - 1])] > p2) {
+				segmentOrder[position] = segmentOrder[position - 1];
+				position--;
+			}
+			segmentOrder[position] = s;
+		}
+		for (int s: segmentOrder) {
+			store.addSegment(source.getSegmentName(s), newPointIds[source.getP1Id(s)],
+							 newPointIds[source.getP2Id(s)]);
+		}
+		return store;
+	}
+
+
+	/**
+	 * Adds a point to this.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE &&
+	 *           MIN_LONGITUDE <= longitude <= MAX_LONGITUDE
+	 * @modifies this
+	 * @effects appends the point (latitude, longitude) to this.points.
+	 * @return the id of the new point.
+	 **/
+	public int addPoint(int latitude, int longitude) {
+		if (pointCount == latitudes.length) {
+			latitudes = Arrays.copyOf(latitudes, pointCount * 2);
+			longitudes = Arrays.copyOf(longitudes, pointCount * 2);
+		}
+		latitudes[pointCount] = latitude;
+		longitudes[pointCount] = longitude;
+		return pointCount++;
+	}
+
+
+	/**
+	 * Adds a segment to this.
+	 * @requires name != null && 0 <= p1Id, p2Id < getPointCount()
+	 * @modifies this
+	 * @effects appends the segment (name, points[p1Id], points[p2Id]) to
+	 *          this.segments, and name to this.names if it is not there.
+	 * @return the id of the new segment.
+	 **/
+	public int addSegment(String name, int p1Id, int p2Id) {
+		if (segmentCount == p1Ids.length) {
+			p1Ids = Arrays.copyOf(p1Ids, segmentCount * 2);
+			p2Ids = Arrays.copyOf(p2Ids, segmentCount * 2);
+			nameIds = Arrays.copyOf(nameIds, segmentCount * 2);
+		}
+		p1Ids[segmentCount] = p1Id;
+		p2Ids[segmentCount] = p2Id;
+		nameIds[segmentCount] = nameIdOf(name);
+		return segmentCount++;
+	}
+
+
+	/**
+	 * Adds a segment to this.
+	 * @requires segment != null
+	 * @modifies this
+	 * @effects appends segment to this.segments. Its endpoints are added to
+	 *          this.points unless they were added by an earlier call to this
+	 *          method, in which case the same point ids are used.
+	 * @return the id of the new segment.
+	 **/
+	public int addSegment(GeoSegment segment) {
+		return addSegment(segment.getName(), pointIdOf(segment.getP1()), pointIdOf(segment.getP2()));
+	}
+
+
+	// the SegmentStore accessors, specified there.
+
+	public int getPointCount() {
+		return pointCount;
+	}
+
+
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+
+	public int getNameCount() {
+		return nameCount;
+	}
+
+
+	public int getLatitude(int pointId) {
+		checkIndex(pointId, pointCount);
+		return latitudes[pointId];
+	}
+
+
+	public int getLongitude(int pointId) {
+		checkIndex(pointId, pointCount);
+		return longitudes[pointId];
+	}
+
+
+	public int getP1Id(int segmentId) {
+		checkIndex(segmentId, segmentCount);
+		return p1Ids[segmentId];
+	}
+
+
+	public int getP2Id(int segmentId) {
+		checkIndex(segmentId, segmentCount);
+		return p2Ids[segmentId];
+	}
+
+
+	public int getNameId(int segmentId) {
+		checkIndex(segmentId, segmentCount);
+		return nameIds[segmentId];
+	}
+
+
+	public String getName(int nameId) {
+		checkIndex(nameId, nameCount);
+		return names[nameId];
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects returns the id of name in this.names, adding it if needed.
+	 **/
+	private int nameIdOf(String name) {
+		Integer nameId = nameIdsByName.get(name);
+		if (nameId != null) {
+			return nameId;
+		}
+		if (nameCount == names.length) {
+			names = Arrays.copyOf(names, nameCount * 2);
+		}
+		names[nameCount] = name;
+		nameIdsByName.put(name, nameCount);
+		return nameCount++;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects returns the id of point in this.points if it was added by
+	 *          addSegment(GeoSegment), and adds it otherwise.
+	 **/
+	private int pointIdOf(GeoPoint point) {
+		int latitude = point.getLatitude();
+		int longitude = point.getLongitude();
+		int pointId = pointIdsByPoint.putIfAbsent(latitude, longitude, pointCount);
+		if (pointId >= 0) {
+			return pointId;
+		}
+		return addPoint(latitude, longitude);
+	}
+
+
+	/**
+	 * @effects throws IndexOutOfBoundsException unless 0 <= index < count.
+	 **/
+	private static void checkIndex(int index, int count) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+		}
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		if (latitudes.length != longitudes.length || pointCount > latitudes.length ||
+				p1Ids.length != p2Ids.length || p1Ids.length != nameIds.length ||
+				segmentCount > p1Ids.length || nameCount > names.length) {
+			return false;
+		}
+		for (int i = 0; i < segmentCount; i++) {
+			if (p1Ids[i] >= pointCount || p2Ids[i] >= pointCount || nameIds[i] >= nameCount) {
+				return false;
+			}
+		}
+		return nameIdsByName.size() == nameCount;
+	}
+}
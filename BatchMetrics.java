@@ -0,0 +1,142 @@
+package homework1;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A BatchMetrics counts the work of RouteFormatter.computeDirectionsBatch()
+ * calls, for monitoring: how many routes they formatted and how fast, and
+ * how many routes waited for a thread.
+ * <p>
+ * Any number of batches, on any number of threads, may record into one
+ * BatchMetrics at once, and it may be read at any time; readings taken
+ * while batches run are consistent per counter, but not across counters.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   batches : integer          // the number of batches finished, failed or not
+ *   routes : integer           // the number of routes formatted
+ *   elapsedNanos : integer     // the total time the finished batches took
+ *   queueDepth : integer       // the routes submitted but not yet started
+ *   maxQueueDepth : integer    // the largest queueDepth so far
+ * </pre>
+ **/
+public final class BatchMetrics {
+
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong routes = new AtomicLong();
+	private final AtomicLong elapsedNanos = new AtomicLong();
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+	// Abstraction function: the fields of the specification are the values
+	// of the fields of the same names.
+	//
+	// Representation invariant: 0 <= queueDepth <= maxQueueDepth, while no
+	// batch is running.
+
+
+	/**
+	 * Returns the number of batches finished.
+	 * @return batches
+	 **/
+	public long getBatches() {
+		return batches.get();
+	}
+
+
+	/**
+	 * Returns the number of routes formatted.
+	 * @return routes
+	 **/
+	public long getRoutes() {
+		return routes.get();
+	}
+
+
+	/**
+	 * Returns the total time the finished batches took.
+	 * @return elapsedNanos, in nanoseconds.
+	 **/
+	public long getElapsedNanos() {
+		return elapsedNanos.get();
+	}
+
+
+	/**
+	 * Returns the rate at which the finished batches formatted routes.
+	 * @return routes per second of elapsedNanos, or 0 if no time has elapsed.
+	 **/
+	public double getThroughput() {
+		long nanos = elapsedNanos.get();
+		return nanos == 0 ? 0 : routes.get() * 1e9 / nanos;
+	}
+
+
+	/**
+	 * Returns the number of routes waiting for a thread.
+	 * @return queueDepth
+	 **/
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+
+	/**
+	 * Returns the largest number of routes that have waited for a thread at
+	 * once.
+	 * @return maxQueueDepth
+	 **/
+	public int getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects records that a route was submitted.
+	 **/
+	void routeQueued() {
+		int depth = queueDepth.incrementAndGet();
+		maxQueueDepth.accumulateAndGet(depth, Math::max);
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects records that a submitted route was started.
+	 **/
+	void routeStarted() {
+		queueDepth.decrementAndGet();
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects records that a route was formatted.
+	 **/
+	void routeFormatted() {
+		routes.incrementAndGet();
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects records that a batch finished after nanos nanoseconds.
+	 **/
+	void batchFinished(long nanos) {
+		batches.incrementAndGet();
+		elapsedNanos.addAndGet(nanos);
+	}
+
+
+	/**
+	 * Returns a string representation of this BatchMetrics.
+	 * @return a string representation of this BatchMetrics.
+	 **/
+	public String toString() {
+		return String.format("%d routes in %d batches, %.0f routes/s, queue depth %d (max %d)",
+							 getRoutes(), getBatches(), getThroughput(), getQueueDepth(),
+							 getMaxQueueDepth());
+	}
+}
@@ -0,0 +1,133 @@
+package homework1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * A CompositeRouteFormatter gives directions for a Route in several modes
+ * of travel at once, such as walking and driving, in a single pass over
+ * the route.
+ * <p>
+ * Every segment's heading and length are computed once, and then handed
+ * to each mode's StepFormatter, which names the turn and writes the line,
+ * so giving directions in n modes costs one walk over the route instead of
+ * n. The directions of each mode are the same as those of a RouteFormatter
+ * that turns and writes its lines with the same StepFormatter; in
+ * particular, a CompositeRouteFormatter of a WalkingRouteFormatter and a
+ * DrivingRouteFormatter gives exactly their directions, even if they
+ * override getTurnString().
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   modes : sequence of StepFormatter   // the modes directions are given in
+ * </pre>
+ **/
+public class CompositeRouteFormatter {
+
+	private final StepFormatter[] modes;
+
+	// Abstraction function: modes = modes.
+	//
+	// Representation invariant: modes != null && modes does not contain null.
+
+
+	/**
+	 * Constructs a new CompositeRouteFormatter.
+	 * @requires modes != null && modes does not contain null
+	 * @effects Constructs a new CompositeRouteFormatter that gives directions
+	 *          in modes, in that order.
+	 **/
+	public CompositeRouteFormatter(StepFormatter... modes) {
+		this.modes = modes.clone();
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Returns the number of modes of this.
+	 * @return modes.length
+	 **/
+	public int getModeCount() {
+		return modes.length;
+	}
+
+
+	/**
+	 * Gives directions for following a Route in every mode, starting at its
+	 * start point and facing in the specified heading.
+	 * @requires route != null && 0 <= heading < 360
+	 * @return an array d of modes.length newline-terminated directions
+	 *         Strings, such that d[k] gives the directions of modes[k].
+	 **/
+	public String[] computeDirections(Route route, double heading) {
+		StringBuilder[] builders = new StringBuilder[modes.length];
+		for (int k = 0; k < modes.length; k++) {
+			builders[k] = new StringBuilder();
+		}
+		try {
+			computeDirections(route, heading, builders);
+		} catch (IOException e) {
+			// a StringBuilder never throws IOException.
+			throw new UncheckedIOException(e);
+		}
+		String[] directions = new String[modes.length];
+		for (int k = 0; k < modes.length; k++) {
+			directions[k] = builders[k].toString();
+		}
+		return directions;
+	}
+
+
+	/**
+	 * Writes directions for following a Route in every mode, starting at
+	 * its start point and facing in the specified heading, in a single pass
+	 * over the route.
+	 * @requires route != null && 0 <= heading < 360 && outs != null &&
+	 *           outs.length == modes.length && outs does not contain null
+	 * @modifies outs
+	 * @effects appends to outs[k] the directions of modes[k], one line per
+	 *          segment, as in RouteFormatter.computeDirections().
+	 * @throws IOException if one of outs throws IOException.
+	 **/
+	public void computeDirections(Route route, double heading, Appendable... outs)
+			throws IOException {
+		Iterator<GeoFeature> features = route.getGeoFeatures();
+		double liveDirection = heading;
+		while (features.hasNext()) {
+			Iterator<GeoSegment> segments = features.next().getGeoSegments();
+			double direction = liveDirection;
+			boolean first = true;
+			while (segments.hasNext()) {
+				GeoSegment segment = segments.next();
+				double segmentHeading = segment.getHeading();
+				String name = segment.getName();
+				double length = segment.getLength();
+				for (int k = 0; k < modes.length; k++) {
+					modes[k].appendStep(outs[k], modes[k].computeTurn(direction, segmentHeading),
+										name, length);
+				}
+				direction = segmentHeading;
+				if (first) {
+					// the next feature's first turn is measured from the start
+					// heading of this one, as in RouteFormatter.
+					liveDirection = segmentHeading;
+					first = false;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		for (StepFormatter mode: modes) {
+			if (mode == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,754 @@
+package homework1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A ContractionHierarchy is a RoadGraph preprocessed for fast shortest-path
+ * queries. ContractionHierarchies are immutable, and are queried through
+ * HierarchyRouteFinders.
+ * <p>
+ * Preprocessing contracts the nodes of the graph one by one, least
+ * important first. Contracting a node removes it, adding a shortcut edge
+ * u->w for every path u->v->w through it unless a local witness search
+ * finds another path from u to w that is no longer. The order of
+ * contraction is the rank of a node. A shortest path then always climbs to
+ * its highest-ranked node along edges towards higher ranks, and descends
+ * from it the same way, so a query searches forward from the source and
+ * backward from the destination along upward edges only, and settles a few
+ * hundred nodes where a Dijkstra search would settle most of the graph.
+ * <p>
+ * The edges of a hierarchy are the edges of its graph, with the same ids,
+ * followed by its shortcuts. A shortcut is made of the two edges it skips,
+ * which may be shortcuts themselves, so every edge can be unpacked back
+ * into the GeoSegments of the graph edges it stands for.
+ * <p>
+ * Preprocessing a large graph takes a while, so a hierarchy can be written
+ * to a file with write() and read back with read(). The file holds the
+ * ranks and the shortcuts only; it is read back together with a RoadGraph
+ * built the same way as the one it was made from. The file also holds a
+ * fingerprint of that graph, a hash of its nodes and edges, and a checksum
+ * of its contents, so that read() rejects a file made from another graph
+ * with as many nodes and edges, or damaged on disk.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph        // the graph this was made from
+ *   ranks : sequence         // the contraction order of each node of graph
+ *   shortcuts : sequence     // (first edge, second edge) of each shortcut
+ * </pre>
+ **/
+public class ContractionHierarchy {
+
+	/** The first int of every hierarchy file: "HW1C" in ASCII. **/
+	public static final int MAGIC = 0x43315748;
+
+	/** The version of the hierarchy file format written by write(). **/
+	public static final int VERSION = 2;
+
+	// the number of nodes a witness search settles before it gives up and
+	// lets a shortcut be added. Lower limits preprocess faster and add more
+	// shortcuts; every limit gives correct distances.
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+
+	private final RoadGraph graph;
+	private final int[] ranks;
+
+	// shortcut s is edge graph.getEdgeCount() + s. It skips the edges
+	// shortcutFirsts[s] and shortcutSeconds[s], which have smaller ids.
+	private final int[] shortcutFirsts;
+	private final int[] shortcutSeconds;
+	private final int[] shortcutSources;
+	private final int[] shortcutTargets;
+	private final double[] shortcutWeights;
+
+	// upward edges in compressed sparse row form: the edges u->w with
+	// ranks[u] < ranks[w] are upEdges[i] for upStart[u] <= i < upStart[u + 1],
+	// leading to upTargets[i] with weight upWeights[i].
+	private final int[] upStart;
+	private final int[] upTargets;
+	private final double[] upWeights;
+	private final int[] upEdges;
+
+	// downward edges, stored at their lower end: the edges w->u with
+	// ranks[u] < ranks[w] are downEdges[i] for downStart[u] <= i < downStart[u + 1],
+	// coming from downSources[i] with weight downWeights[i].
+	private final int[] downStart;
+	private final int[] downSources;
+	private final double[] downWeights;
+	private final int[] downEdges;
+
+	// Abstraction function: graph and ranks are the fields of the same name,
+	// and shortcuts[s] = (shortcutFirsts[s], shortcutSeconds[s]).
+	//
+	// Representation invariant: ranks is a permutation of 0..nodeCount-1 &&
+	// for every shortcut s, its first and second edges have ids smaller than
+	// graph.getEdgeCount() + s, the target of the first is the source of the
+	// second, shortcutSources[s] and shortcutTargets[s] are the outer ends
+	// and shortcutWeights[s] is the sum of their weights && upEdges and
+	// downEdges hold every edge that is not a loop exactly once, by rank.
+
+
+	/**
+	 * Constructs a new ContractionHierarchy.
+	 * @requires graph != null
+	 * @effects Constructs a new ContractionHierarchy by contracting the
+	 *          nodes of graph.
+	 **/
+	public ContractionHierarchy(RoadGraph graph) {
+		this(graph, new Contractor(graph));
+	}
+
+
+	/**
+	 * @effects Constructs a new ContractionHierarchy from the result of a
+	 *          contraction of graph.
+	 **/
+	private ContractionHierarchy(RoadGraph graph, Contractor contractor) {
+		this(graph, contractor.ranks, Arrays.copyOf(contractor.shortcutFirsts, contractor.shortcutCount),
+			 Arrays.copyOf(contractor.shortcutSeconds, contractor.shortcutCount));
+	}
+
+
+	/**
+	 * @requires ranks and shortcuts meet the representation invariant
+	 * @effects Constructs a new ContractionHierarchy of graph with the given
+	 *          ranks and shortcuts, deriving everything else from them.
+	 **/
+	private ContractionHierarchy(RoadGraph graph, int[] ranks, int[] shortcutFirsts,
+								 int[] shortcutSeconds) {
+		this.graph = graph;
+		this.ranks = ranks;
+		this.shortcutFirsts = shortcutFirsts;
+		this.shortcutSeconds = shortcutSeconds;
+
+		int shortcutCount = shortcutFirsts.length;
+		shortcutSources = new int[shortcutCount];
+		shortcutTargets = new int[shortcutCount];
+		shortcutWeights = new double[shortcutCount];
+		for (int s = 0; s < shortcutCount; s++) {
+			shortcutSources[s] = getEdgeSource(shortcutFirsts[s]);
+			shortcutTargets[s] = getEdgeTarget(shortcutSeconds[s]);
+			shortcutWeights[s] = getEdgeWeight(shortcutFirsts[s]) + getEdgeWeight(shortcutSeconds[s]);
+		}
+
+		// counting sort of the edges into the upward and downward graphs.
+		int nodeCount = graph.getNodeCount();
+		int edgeCount = getEdgeCount();
+		upStart = new int[nodeCount + 1];
+		downStart = new int[nodeCount + 1];
+		for (int e = 0; e < edgeCount; e++) {
+			int source = getEdgeSource(e);
+			int target = getEdgeTarget(e);
+			if (ranks[source] < ranks[target]) {
+				upStart[source + 1]++;
+			} else if (ranks[target] < ranks[source]) {
+				downStart[target + 1]++;
+			}
+		}
+		for (int n = 0; n < nodeCount; n++) {
+			upStart[n + 1] += upStart[n];
+			downStart[n + 1] += downStart[n];
+		}
+		upTargets = new int[upStart[nodeCount]];
+		upWeights = new double[upTargets.length];
+		upEdges = new int[upTargets.length];
+		downSources = new int[downStart[nodeCount]];
+		downWeights = new double[downSources.length];
+		downEdges = new int[downSources.length];
+		int[] nextUp = Arrays.copyOf(upStart, nodeCount);
+		int[] nextDown = Arrays.copyOf(downStart, nodeCount);
+		for (int e = 0; e < edgeCount; e++) {
+			int source = getEdgeSource(e);
+			int target = getEdgeTarget(e);
+			if (ranks[source] < ranks[target]) {
+				int i = nextUp[source]++;
+				upTargets[i] = target;
+				upWeights[i] = getEdgeWeight(e);
+				upEdges[i] = e;
+			} else if (ranks[target] < ranks[source]) {
+				int i = nextDown[target]++;
+				downSources[i] = source;
+				downWeights[i] = getEdgeWeight(e);
+				downEdges[i] = e;
+			}
+		}
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Reads a hierarchy written by write().
+	 * @requires file != null && graph != null
+	 * @return the ContractionHierarchy written to file, on graph.
+	 * @throws IOException if the file cannot be read, is not a hierarchy
+	 *         file, is corrupt, or was not made from a graph with the same
+	 *         nodes and edges as graph.
+	 **/
+	public static ContractionHierarchy read(Path file, RoadGraph graph) throws IOException {
+		CRC32 checksum = new CRC32();
+		try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+				new BufferedInputStream(Files.newInputStream(file)), checksum))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not a contraction hierarchy");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException(file + " has unsupported hierarchy version " + version);
+			}
+			int nodeCount = in.readInt();
+			int edgeCount = in.readInt();
+			int shortcutCount = in.readInt();
+			long fingerprint = in.readLong();
+			if (nodeCount != graph.getNodeCount() || edgeCount != graph.getEdgeCount() ||
+					fingerprint != fingerprint(graph)) {
+				throw new IOException(file + " was made from a different graph");
+			}
+			if (shortcutCount < 0) {
+				throw new IOException(file + " is a corrupt contraction hierarchy");
+			}
+
+			int[] ranks = new int[nodeCount];
+			boolean[] ranked = new boolean[nodeCount];
+			for (int n = 0; n < nodeCount; n++) {
+				int rank = in.readInt();
+				if (rank < 0 || rank >= nodeCount || ranked[rank]) {
+					throw new IOException(file + " is a corrupt contraction hierarchy");
+				}
+				ranked[rank] = true;
+				ranks[n] = rank;
+			}
+			// the ends of every shortcut, to check that its edges meet.
+			int[] firsts = new int[shortcutCount];
+			int[] seconds = new int[shortcutCount];
+			int[] sources = new int[shortcutCount];
+			int[] targets = new int[shortcutCount];
+			for (int s = 0; s < shortcutCount; s++) {
+				firsts[s] = in.readInt();
+				seconds[s] = in.readInt();
+				int id = edgeCount + s;
+				if (firsts[s] < 0 || firsts[s] >= id || seconds[s] < 0 || seconds[s] >= id) {
+					throw new IOException(file + " is a corrupt contraction hierarchy");
+				}
+				int middle = firsts[s] < edgeCount ? graph.getEdgeTarget(firsts[s])
+												   : targets[firsts[s] - edgeCount];
+				int secondSource = seconds[s] < edgeCount ? graph.getEdgeSource(seconds[s])
+														  : sources[seconds[s] - edgeCount];
+				if (middle != secondSource) {
+					throw new IOException(file + " is a corrupt contraction hierarchy");
+				}
+				sources[s] = firsts[s] < edgeCount ? graph.getEdgeSource(firsts[s])
+												   : sources[firsts[s] - edgeCount];
+				targets[s] = seconds[s] < edgeCount ? graph.getEdgeTarget(seconds[s])
+													: targets[seconds[s] - edgeCount];
+			}
+			long expected = checksum.getValue();
+			if (in.readLong() != expected) {
+				throw new IOException(file + " is a corrupt contraction hierarchy");
+			}
+			return new ContractionHierarchy(graph, ranks, firsts, seconds);
+		}
+	}
+
+
+	/**
+	 * Writes this to a file.
+	 * @requires file != null
+	 * @modifies the file at file
+	 * @effects creates or replaces the file at file with the ranks and
+	 *          shortcuts of this, the fingerprint of graph and a checksum,
+	 *          such that read(file, graph) equals this.
+	 * @throws IOException if the file cannot be written.
+	 **/
+	public void write(Path file) throws IOException {
+		CRC32 checksum = new CRC32();
+		try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file)), checksum))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(graph.getNodeCount());
+			out.writeInt(graph.getEdgeCount());
+			out.writeInt(shortcutFirsts.length);
+			out.writeLong(fingerprint(graph));
+			for (int rank: ranks) {
+				out.writeInt(rank);
+			}
+			for (int s = 0; s < shortcutFirsts.length; s++) {
+				out.writeInt(shortcutFirsts[s]);
+				out.writeInt(shortcutSeconds[s]);
+			}
+			out.writeLong(checksum.getValue());
+		}
+	}
+
+
+	/**
+	 * @effects returns a 64-bit FNV-1a hash of the coordinates of every node
+	 *          of graph and the source, target and weight of every edge, in
+	 *          id order.
+	 **/
+	private static long fingerprint(RoadGraph graph) {
+		long hash = 0xcbf29ce484222325L;
+		for (int n = 0; n < graph.getNodeCount(); n++) {
+			GeoPoint node = graph.getNode(n);
+			hash = (hash ^ node.getLatitude()) * 0x100000001b3L;
+			hash = (hash ^ node.getLongitude()) * 0x100000001b3L;
+		}
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			hash = (hash ^ graph.getEdgeSource(e)) * 0x100000001b3L;
+			hash = (hash ^ graph.getEdgeTarget(e)) * 0x100000001b3L;
+			hash = (hash ^ Double.doubleToLongBits(graph.getEdgeWeight(e))) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+
+	/**
+	 * Returns the graph this was made from.
+	 * @return this.graph
+	 **/
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+
+	/**
+	 * Returns the rank of a node.
+	 * @requires 0 <= nodeId < graph.getNodeCount()
+	 * @return ranks[nodeId], the number of nodes contracted before it.
+	 **/
+	public int getRank(int nodeId) {
+		return ranks[nodeId];
+	}
+
+
+	/**
+	 * Returns the number of shortcuts in this.
+	 * @return the number of shortcuts preprocessing added to the graph.
+	 **/
+	public int getShortcutCount() {
+		return shortcutFirsts.length;
+	}
+
+
+	/**
+	 * Returns the number of edges in this.
+	 * @return graph.getEdgeCount() + getShortcutCount()
+	 **/
+	public int getEdgeCount() {
+		return graph.getEdgeCount() + shortcutFirsts.length;
+	}
+
+
+	/**
+	 * Returns the node an edge leaves.
+	 * @requires 0 <= edgeId < getEdgeCount()
+	 * @return the node id of the source of edge edgeId.
+	 **/
+	public int getEdgeSource(int edgeId) {
+		int s = edgeId - graph.getEdgeCount();
+		return s < 0 ? graph.getEdgeSource(edgeId) : shortcutSources[s];
+	}
+
+
+	/**
+	 * Returns the node an edge leads to.
+	 * @requires 0 <= edgeId < getEdgeCount()
+	 * @return the node id of the target of edge edgeId.
+	 **/
+	public int getEdgeTarget(int edgeId) {
+		int s = edgeId - graph.getEdgeCount();
+		return s < 0 ? graph.getEdgeTarget(edgeId) : shortcutTargets[s];
+	}
+
+
+	/**
+	 * Returns the weight of an edge.
+	 * @requires 0 <= edgeId < getEdgeCount()
+	 * @return the length, in kilometers, of the segments edge edgeId
+	 *         stands for.
+	 **/
+	public double getEdgeWeight(int edgeId) {
+		int s = edgeId - graph.getEdgeCount();
+		return s < 0 ? graph.getEdgeWeight(edgeId) : shortcutWeights[s];
+	}
+
+
+	/**
+	 * Appends the segments an edge stands for to a route.
+	 * @requires 0 <= edgeId < getEdgeCount() && (route == null ||
+	 *           route.end = the source of edge edgeId)
+	 * @return the Route made by adding the segments of the graph edges edge
+	 *         edgeId stands for, in order, to route with Route.addSegment(),
+	 *         or to a new Route if route is null.
+	 **/
+	public Route appendEdge(Route route, int edgeId) {
+		int graphEdgeCount = graph.getEdgeCount();
+		// the edges still to unpack, the next one on top.
+		int[] stack = new int[16];
+		int size = 0;
+		stack[size++] = edgeId;
+		while (size > 0) {
+			int e = stack[--size];
+			if (e < graphEdgeCount) {
+				GeoSegment segment = graph.getEdgeSegment(e);
+				route = route == null ? new Route(segment) : route.addSegment(segment);
+				continue;
+			}
+			if (size + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+			stack[size++] = shortcutSeconds[e - graphEdgeCount];
+			stack[size++] = shortcutFirsts[e - graphEdgeCount];
+		}
+		return route;
+	}
+
+
+	// the upward and downward graphs, for HierarchyRouteFinder.
+
+	int getUpStart(int nodeId) {
+		return upStart[nodeId];
+	}
+
+
+	int getUpEnd(int nodeId) {
+		return upStart[nodeId + 1];
+	}
+
+
+	int getUpTarget(int i) {
+		return upTargets[i];
+	}
+
+
+	double getUpWeight(int i) {
+		return upWeights[i];
+	}
+
+
+	int getUpEdge(int i) {
+		return upEdges[i];
+	}
+
+
+	int getDownStart(int nodeId) {
+		return downStart[nodeId];
+	}
+
+
+	int getDownEnd(int nodeId) {
+		return downStart[nodeId + 1];
+	}
+
+
+	int getDownSource(int i) {
+		return downSources[i];
+	}
+
+
+	double getDownWeight(int i) {
+		return downWeights[i];
+	}
+
+
+	int getDownEdge(int i) {
+		return downEdges[i];
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		int nodeCount = graph.getNodeCount();
+		int graphEdgeCount = graph.getEdgeCount();
+		if (ranks.length != nodeCount || shortcutSeconds.length != shortcutFirsts.length ||
+				upStart[nodeCount] + downStart[nodeCount] > getEdgeCount()) {
+			return false;
+		}
+		boolean[] ranked = new boolean[nodeCount];
+		for (int rank: ranks) {
+			if (rank < 0 || rank >= nodeCount || ranked[rank]) {
+				return false;
+			}
+			ranked[rank] = true;
+		}
+		for (int s = 0; s < shortcutFirsts.length; s++) {
+			int first = shortcutFirsts[s];
+			int second = shortcutSeconds[s];
+			if (first >= graphEdgeCount + s || second >= graphEdgeCount + s ||
+					getEdgeTarget(first) != getEdgeSource(second)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * A Contractor computes the ranks and shortcuts of a graph by
+	 * contracting its nodes in order of twice their edge difference (the
+	 * number of shortcuts contracting a node would add, less the number of
+	 * edges it would remove) plus the number of their neighbors already
+	 * contracted, so that contraction spreads evenly over the graph.
+	 * Priorities are updated lazily: a node taken from the queue is put back
+	 * if its priority has grown past the next one.
+	 **/
+	private static final class Contractor {
+
+		private final RoadGraph graph;
+		private final int graphEdgeCount;
+
+		// the result.
+		final int[] ranks;
+		int[] shortcutFirsts = new int[16];
+		int[] shortcutSeconds = new int[16];
+		int shortcutCount;
+
+		// the shortcuts' ends and weights, while contracting.
+		private int[] shortcutSources = new int[16];
+		private int[] shortcutTargets = new int[16];
+		private double[] shortcutWeights = new double[16];
+
+		// the edges entering and leaving every node, including shortcuts
+		// and edges to contracted nodes, which are skipped.
+		private final EdgeList[] inEdges;
+		private final EdgeList[] outEdges;
+		private final boolean[] contracted;
+		private final int[] contractedNeighbors;
+
+		// the witness search state, stamped like RouteFinder's.
+		private final double[] witnessDistances;
+		private final int[] witnessReached;
+		private final NodeHeap witnessHeap;
+		private int witnessSearch;
+
+
+		Contractor(RoadGraph graph) {
+			this.graph = graph;
+			int nodeCount = graph.getNodeCount();
+			graphEdgeCount = graph.getEdgeCount();
+			ranks = new int[nodeCount];
+			inEdges = new EdgeList[nodeCount];
+			outEdges = new EdgeList[nodeCount];
+			for (int n = 0; n < nodeCount; n++) {
+				inEdges[n] = new EdgeList();
+				outEdges[n] = new EdgeList();
+			}
+			for (int e = 0; e < graphEdgeCount; e++) {
+				outEdges[graph.getEdgeSource(e)].add(e);
+				inEdges[graph.getEdgeTarget(e)].add(e);
+			}
+			contracted = new boolean[nodeCount];
+			contractedNeighbors = new int[nodeCount];
+			witnessDistances = new double[nodeCount];
+			witnessReached = new int[nodeCount];
+			witnessHeap = new NodeHeap(nodeCount);
+
+			NodeHeap queue = new NodeHeap(nodeCount);
+			for (int n = 0; n < nodeCount; n++) {
+				queue.insertOrDecrease(n, priority(n));
+			}
+			int rank = 0;
+			while (!queue.isEmpty()) {
+				int node = queue.poll();
+				double priority = priority(node);
+				if (!queue.isEmpty() && priority > queue.peekKey()) {
+					queue.insertOrDecrease(node, priority);
+					continue;
+				}
+				contract(node, true);
+				contracted[node] = true;
+				ranks[node] = rank++;
+			}
+		}
+
+
+		/**
+		 * @effects returns the priority of node: the smaller, the sooner it
+		 *          is contracted.
+		 **/
+		private double priority(int node) {
+			int removed = 0;
+			for (int i = 0; i < inEdges[node].size; i++) {
+				removed += contracted[source(inEdges[node].ids[i])] ? 0 : 1;
+			}
+			for (int i = 0; i < outEdges[node].size; i++) {
+				removed += contracted[target(outEdges[node].ids[i])] ? 0 : 1;
+			}
+			return 2 * (contract(node, false) - removed) + contractedNeighbors[node];
+		}
+
+
+		/**
+		 * @modifies this, if add
+		 * @effects finds the shortcuts contracting node needs, adding them
+		 *          if add, and counting the contracted neighbors of its
+		 *          neighbors if add.
+		 * @return the number of shortcuts found.
+		 **/
+		private int contract(int node, boolean add) {
+			int shortcuts = 0;
+			EdgeList in = inEdges[node];
+			EdgeList out = outEdges[node];
+			for (int i = 0; i < in.size; i++) {
+				int inEdge = in.ids[i];
+				int source = source(inEdge);
+				if (contracted[source] || source == node) {
+					continue;
+				}
+				if (add) {
+					contractedNeighbors[source]++;
+				}
+				double inWeight = weight(inEdge);
+				double limit = -1;
+				for (int j = 0; j < out.size; j++) {
+					int target = target(out.ids[j]);
+					if (!contracted[target] && target != source && target != node) {
+						limit = Math.max(limit, inWeight + weight(out.ids[j]));
+					}
+				}
+				if (limit < 0) {
+					continue;
+				}
+				witnessSearch(source, node, limit);
+				for (int j = 0; j < out.size; j++) {
+					int outEdge = out.ids[j];
+					int target = target(outEdge);
+					if (contracted[target] || target == source || target == node) {
+						continue;
+					}
+					double weight = inWeight + weight(outEdge);
+					if (witnessReached[target] == witnessSearch && witnessDistances[target] <= weight) {
+						continue;
+					}
+					shortcuts++;
+					if (add) {
+						addShortcut(inEdge, outEdge, source, target, weight);
+						// later searches from source see the shortcut.
+						relax(target, weight);
+					}
+				}
+			}
+			if (add) {
+				for (int j = 0; j < out.size; j++) {
+					int target = target(out.ids[j]);
+					if (!contracted[target]) {
+						contractedNeighbors[target]++;
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+
+		/**
+		 * @modifies this
+		 * @effects runs a Dijkstra search from source over the nodes not yet
+		 *          contracted, other than skipped, that stops past limit or
+		 *          after WITNESS_SETTLE_LIMIT settled nodes.
+		 **/
+		private void witnessSearch(int source, int skipped, double limit) {
+			witnessSearch++;
+			witnessHeap.clear();
+			relax(source, 0);
+			int settled = 0;
+			while (!witnessHeap.isEmpty() && witnessHeap.peekKey() <= limit &&
+				   settled < WITNESS_SETTLE_LIMIT) {
+				int node = witnessHeap.poll();
+				settled++;
+				double distance = witnessDistances[node];
+				EdgeList out = outEdges[node];
+				for (int i = 0; i < out.size; i++) {
+					int target = target(out.ids[i]);
+					if (!contracted[target] && target != skipped) {
+						relax(target, distance + weight(out.ids[i]));
+					}
+				}
+			}
+		}
+
+
+		/**
+		 * @modifies this
+		 * @effects records that the witness search reached node at distance,
+		 *          if that is shorter than it reached it before.
+		 **/
+		private void relax(int node, double distance) {
+			if (witnessReached[node] == witnessSearch && distance >= witnessDistances[node]) {
+				return;
+			}
+			witnessReached[node] = witnessSearch;
+			witnessDistances[node] = distance;
+			witnessHeap.insertOrDecrease(node, distance);
+		}
+
+
+		/**
+		 * @modifies this
+		 * @effects adds the shortcut first + second from source to target.
+		 **/
+		private void addShortcut(int first, int second, int source, int target, double weight) {
+			if (shortcutCount == shortcutFirsts.length) {
+				int capacity = shortcutCount * 2;
+				shortcutFirsts = Arrays.copyOf(shortcutFirsts, capacity);
+				shortcutSeconds = Arrays.copyOf(shortcutSeconds, capacity);
+				shortcutSources = Arrays.copyOf(shortcutSources, capacity);
+				shortcutTargets = Arrays.copyOf(shortcutTargets, capacity);
+				shortcutWeights = Arrays.copyOf(shortcutWeights, capacity);
+			}
+			shortcutFirsts[shortcutCount] = first;
+			shortcutSeconds[shortcutCount] = second;
+			shortcutSources[shortcutCount] = source;
+			shortcutTargets[shortcutCount] = target;
+			shortcutWeights[shortcutCount] = weight;
+			int edgeId = graphEdgeCount + shortcutCount++;
+			outEdges[source].add(edgeId);
+			inEdges[target].add(edgeId);
+		}
+
+
+		private int source(int edgeId) {
+			return edgeId < graphEdgeCount ? graph.getEdgeSource(edgeId)
+										   : shortcutSources[edgeId - graphEdgeCount];
+		}
+
+
+		private int target(int edgeId) {
+			return edgeId < graphEdgeCount ? graph.getEdgeTarget(edgeId)
+										   : shortcutTargets[edgeId - graphEdgeCount];
+		}
+
+
+		private double weight(int edgeId) {
+			return edgeId < graphEdgeCount ? graph.getEdgeWeight(edgeId)
+										   : shortcutWeights[edgeId - graphEdgeCount];
+		}
+	}
+
+
+	/**
+	 * An EdgeList is a growable list of edge ids.
+	 **/
+	private static final class EdgeList {
+		int[] ids = new int[4];
+		int size;
+
+		void add(int edgeId) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = edgeId;
+		}
+	}
+}
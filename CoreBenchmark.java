@@ -0,0 +1,223 @@
+package homework1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * CoreBenchmark measures the time and the memory allocated per operation of
+ * the core classes: GeoPoint distances and headings, GeoSegment lengths,
+ * building and walking Routes, and formatting directions, one route at a
+ * time and in parallel batches.
+ * <p>
+ * Every workload runs WARMUP_ROUNDS times to let the JIT compile it, and
+ * then ROUNDS times while being measured. Allocation is read from the
+ * per-thread allocation counter of the HotSpot ThreadMXBean, the same
+ * counter JMH's gc.alloc.rate.norm is computed from, so a change that makes
+ * a hot path allocate shows up as a jump in B/op. Compare the output of a
+ * change with that of the commit before it, on the same machine.
+ * <p>
+ * Usage: <tt>java homework1.CoreBenchmark [filter]</tt>, where only the
+ * workloads whose names contain filter are run.
+ */
+public class CoreBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 5;
+	private static final int POINT_OPERATIONS = 1000000;
+	private static final int[] ROUTE_SIZES = {10, 100, 1000, 10000, 100000};
+	private static final int DIRECTIONS_SIZE = 1000;
+
+	private static final com.sun.management.ThreadMXBean threads =
+		(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	private static String filter = "";
+
+
+	public static void main(String[] args) {
+		if (args.length > 0) {
+			filter = args[0];
+		}
+		System.out.println(String.format("%-40s %12s %12s", "Benchmark", "ns/op", "B/op"));
+
+		GeoPoint[] points = chain(1024);
+		GeoSegment[] segments = segments(points);
+		report("GeoPoint.distanceTo", POINT_OPERATIONS, () -> {
+			double total = 0;
+			for (int i = 0; i < POINT_OPERATIONS; i++) {
+				total += points[i & 1023].distanceTo(points[(i + 1) & 1023]);
+			}
+			consume(total);
+		});
+		report("GeoPoint.headingTo", POINT_OPERATIONS, () -> {
+			double total = 0;
+			for (int i = 0; i < POINT_OPERATIONS; i++) {
+				total += points[i & 1023].headingTo(points[(i + 1) & 1023]);
+			}
+			consume(total);
+		});
+		report("GeoSegment.getLength", POINT_OPERATIONS, () -> {
+			double total = 0;
+			for (int i = 0; i < POINT_OPERATIONS; i++) {
+				total += segments[i % segments.length].getLength();
+			}
+			consume(total);
+		});
+
+		for (int size: ROUTE_SIZES) {
+			GeoSegment[] routeSegments = segments(chain(size + 1));
+			int repeats = Math.max(1, 100000 / size);
+			report("Route.addSegment, " + size + " segments", repeats * size, () -> {
+				for (int r = 0; r < repeats; r++) {
+					consume(build(routeSegments).getLength());
+				}
+			});
+			Route route = build(routeSegments);
+			report("Route.getGeoSegments, " + size + " segments", repeats * size, () -> {
+				double total = 0;
+				for (int r = 0; r < repeats; r++) {
+					for (Iterator<GeoSegment> i = route.getGeoSegments(); i.hasNext(); ) {
+						total += i.next().getLength();
+					}
+				}
+				consume(total);
+			});
+		}
+
+		Route route = build(segments(chain(DIRECTIONS_SIZE + 1)));
+		RouteFormatter driving = new DrivingRouteFormatter();
+		RouteFormatter walking = new WalkingRouteFormatter();
+		report("DrivingRouteFormatter.computeDirections", 100,
+			   () -> directions(driving, route, 100));
+		report("WalkingRouteFormatter.computeDirections", 100,
+			   () -> directions(walking, route, 100));
+		report("DrivingRouteFormatter, to a builder", 100,
+			   () -> appendDirections(driving, route, 100));
+		report("WalkingRouteFormatter, to a builder", 100,
+			   () -> appendDirections(walking, route, 100));
+		CompositeRouteFormatter composite = new CompositeRouteFormatter(new WalkingRouteFormatter(),
+																		new DrivingRouteFormatter());
+		report("CompositeRouteFormatter, both modes", 100, () -> {
+			int total = 0;
+			for (int i = 0; i < 100; i++) {
+				total += composite.computeDirections(route, 0)[0].length();
+			}
+			consume(total);
+		});
+
+		List<Route> batch = Collections.nCopies(100, route);
+		double[] headings = new double[batch.size()];
+		// B/op only counts the calling thread, not the threads of the pool.
+		report("DrivingRouteFormatter, in a batch", batch.size(),
+			   () -> consume(driving.computeDirectionsBatch(batch, headings).size()));
+	}
+
+
+	/**
+	 * Runs workload WARMUP_ROUNDS + ROUNDS times, and prints the average time
+	 * and allocated bytes per operation of the last ROUNDS runs, if name
+	 * passes the filter.
+	 */
+	private static void report(String name, int operations, Runnable workload) {
+		if (!name.contains(filter)) {
+			return;
+		}
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			workload.run();
+		}
+		long startBytes = threads.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			workload.run();
+		}
+		double nanos = (double)(System.nanoTime() - start) / ROUNDS / operations;
+		double bytes = (double)(threads.getCurrentThreadAllocatedBytes() - startBytes) / ROUNDS / operations;
+		System.out.println(String.format("%-40s %12.1f %12.1f", name, nanos, bytes));
+	}
+
+
+	/**
+	 * Formats the directions of route count times, as Strings.
+	 */
+	private static void directions(RouteFormatter formatter, Route route, int count) {
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			total += formatter.computeDirections(route, 0).length();
+		}
+		consume(total);
+	}
+
+
+	/**
+	 * Formats the directions of route count times, into one reused builder.
+	 */
+	private static void appendDirections(RouteFormatter formatter, Route route, int count) {
+		StringBuilder out = new StringBuilder();
+		try {
+			for (int i = 0; i < count; i++) {
+				out.setLength(0);
+				formatter.computeDirections(route, 0, out);
+			}
+		} catch (IOException e) {
+			// a StringBuilder never throws IOException.
+			throw new UncheckedIOException(e);
+		}
+		consume(out.length());
+	}
+
+
+	/**
+	 * Returns the Route made of segments, added one at a time.
+	 */
+	private static Route build(GeoSegment[] segments) {
+		Route route = new Route(segments[0]);
+		for (int i = 1; i < segments.length; i++) {
+			route = route.addSegment(segments[i]);
+		}
+		return route;
+	}
+
+
+	/**
+	 * Returns count points of a path that winds north-east from the Technion,
+	 * turning every few points.
+	 */
+	private static GeoPoint[] chain(int count) {
+		GeoPoint[] points = new GeoPoint[count];
+		int latitude = 32783098;
+		int longitude = 35014528;
+		for (int i = 0; i < count; i++) {
+			points[i] = new GeoPoint(latitude, longitude);
+			if ((i / 4) % 2 == 0) {
+				latitude += 300 + 37 * (i % 5);
+			} else {
+				longitude += 300 + 41 * (i % 3);
+			}
+		}
+		return points;
+	}
+
+
+	/**
+	 * Returns the segments between consecutive points, named so that every
+	 * four make one feature.
+	 */
+	private static GeoSegment[] segments(GeoPoint[] points) {
+		GeoSegment[] segments = new GeoSegment[points.length - 1];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new GeoSegment("Street " + (i / 4) % 50, points[i], points[i + 1]);
+		}
+		return segments;
+	}
+
+
+	// a sink for results, so the JIT cannot drop the work.
+	private static volatile double sink;
+
+	private static void consume(double value) {
+		sink = value;
+	}
+}
@@ -0,0 +1,266 @@
+package homework1;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A DirectSegmentStore is a SegmentStore that keeps its point and segment
+ * columns outside the Java heap, in direct ByteBuffers, where the garbage
+ * collector never scans or copies them. Only the name dictionary is kept on
+ * the heap.
+ * <p>
+ * DirectSegmentStores are immutable. They are made by copying another
+ * SegmentStore, typically an ArraySegmentStore used to build the network.
+ * Reading from a DirectSegmentStore through the primitive accessors of
+ * SegmentStore creates no objects.
+ * <p>
+ * The columns are split into chunks of CHUNK_SIZE entries each, so a store
+ * is not limited to the 2GB a single ByteBuffer can hold. Every point takes
+ * POINT_BYTES bytes (latitude, longitude) and every segment SEGMENT_BYTES
+ * bytes (p1 id, p2 id, name id), all little-endian ints.
+ *
+ * @see homework1.SegmentStore
+ **/
+public class DirectSegmentStore extends SegmentStore {
+
+	/** log2 of CHUNK_SIZE. **/
+	static final int CHUNK_SHIFT = 24;
+
+	/** The number of points or segments in every chunk but the last. **/
+	public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	/** The number of bytes each point takes. **/
+	public static final int POINT_BYTES = 8;
+
+	/** The number of bytes each segment takes. **/
+	public static final int SEGMENT_BYTES = 12;
+
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	// chunks of POINT_BYTES-byte point records and SEGMENT_BYTES-byte
+	// segment records; record i is in chunk i >>> CHUNK_SHIFT.
+	private final ByteBuffer[] pointChunks;
+	private final ByteBuffer[] segmentChunks;
+	private final int pointCount;
+	private final int segmentCount;
+
+	// the name dictionary.
+	private final String[] names;
+
+	// Abstraction function: points[i] = (latitude, longitude) read from
+	// record i of pointChunks, segments[i] = (names[name id], points[p1 id],
+	// points[p2 id]) read from record i of segmentChunks.
+	//
+	// Representation invariant: pointChunks, segmentChunks and names are not
+	// null && the chunks hold pointCount and segmentCount records &&
+	// every p1 id, p2 id of a segment is a point id && every name id of a
+	// segment is an index of names.
+
+
+	/**
+	 * Constructs a new DirectSegmentStore.
+	 * @requires source != null
+	 * @effects Constructs a new DirectSegmentStore holding the points,
+	 *          segments and names of source, with the same ids.
+	 **/
+	public DirectSegmentStore(SegmentStore source) {
+		this(copyPoints(source), source.getPointCount(),
+			 copySegments(source), source.getSegmentCount(), copyNames(source));
+		assert(!ValidationLevel.onConstruction() || this.checkSegments());
+	}
+
+
+	/**
+	 * Constructs a new DirectSegmentStore.
+	 * @requires the arguments meet the representation invariant, and the
+	 *           buffers are little-endian and not modified afterwards.
+	 * @effects Constructs a new DirectSegmentStore reading its columns from
+	 *          the given buffers, without copying them. Only the shape of
+	 *          the buffers is checked, in constant time, so that mapped
+	 *          files are not read through; the ids of the segments are not.
+	 **/
+	DirectSegmentStore(ByteBuffer[] pointChunks, int pointCount,
+					   ByteBuffer[] segmentChunks, int segmentCount, String[] names) {
+		this.pointChunks = pointChunks;
+		this.pointCount = pointCount;
+		this.segmentChunks = segmentChunks;
+		this.segmentCount = segmentCount;
+		this.names = names;
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	// the SegmentStore accessors, specified there.
+
+	public int getPointCount() {
+		return pointCount;
+	}
+
+
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+
+	public int getNameCount() {
+		return names.length;
+	}
+
+
+	public int getLatitude(int pointId) {
+		return pointField(pointId, 0);
+	}
+
+
+	public int getLongitude(int pointId) {
+		return pointField(pointId, 4);
+	}
+
+
+	public int getP1Id(int segmentId) {
+		return segmentField(segmentId, 0);
+	}
+
+
+	public int getP2Id(int segmentId) {
+		return segmentField(segmentId, 4);
+	}
+
+
+	public int getNameId(int segmentId) {
+		return segmentField(segmentId, 8);
+	}
+
+
+	public String getName(int nameId) {
+		return names[nameId];
+	}
+
+
+	/**
+	 * @effects returns the int at offset within the record of point pointId.
+	 * @throws IndexOutOfBoundsException if pointId is not a point id.
+	 **/
+	private int pointField(int pointId, int offset) {
+		if (pointId < 0 || pointId >= pointCount) {
+			throw new IndexOutOfBoundsException("Index: " + pointId + ", Size: " + pointCount);
+		}
+		return pointChunks[pointId >>> CHUNK_SHIFT]
+				.getInt((pointId & CHUNK_MASK) * POINT_BYTES + offset);
+	}
+
+
+	/**
+	 * @effects returns the int at offset within the record of segment segmentId.
+	 * @throws IndexOutOfBoundsException if segmentId is not a segment id.
+	 **/
+	private int segmentField(int segmentId, int offset) {
+		if (segmentId < 0 || segmentId >= segmentCount) {
+			throw new IndexOutOfBoundsException("Index: " + segmentId + ", Size: " + segmentCount);
+		}
+		return segmentChunks[segmentId >>> CHUNK_SHIFT]
+				.getInt((segmentId & CHUNK_MASK) * SEGMENT_BYTES + offset);
+	}
+
+
+	/**
+	 * @effects returns the number of chunks needed for count records.
+	 **/
+	static int chunkCount(int count) {
+		return (count + CHUNK_MASK) >>> CHUNK_SHIFT;
+	}
+
+
+	/**
+	 * @effects returns the number of records in chunk chunk of count records.
+	 **/
+	static int chunkLength(int count, int chunk) {
+		return Math.min(CHUNK_SIZE, count - (chunk << CHUNK_SHIFT));
+	}
+
+
+	/**
+	 * @effects returns new direct chunks holding the point records of source.
+	 **/
+	private static ByteBuffer[] copyPoints(SegmentStore source) {
+		int count = source.getPointCount();
+		ByteBuffer[] chunks = new ByteBuffer[chunkCount(count)];
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			int length = chunkLength(count, chunk);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(length * POINT_BYTES)
+										  .order(ByteOrder.LITTLE_ENDIAN);
+			int first = chunk << CHUNK_SHIFT;
+			for (int i = 0; i < length; i++) {
+				buffer.putInt(source.getLatitude(first + i));
+				buffer.putInt(source.getLongitude(first + i));
+			}
+			buffer.clear();
+			chunks[chunk] = buffer;
+		}
+		return chunks;
+	}
+
+
+	/**
+	 * @effects returns new direct chunks holding the segment records of source.
+	 **/
+	private static ByteBuffer[] copySegments(SegmentStore source) {
+		int count = source.getSegmentCount();
+		ByteBuffer[] chunks = new ByteBuffer[chunkCount(count)];
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			int length = chunkLength(count, chunk);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(length * SEGMENT_BYTES)
+										  .order(ByteOrder.LITTLE_ENDIAN);
+			int first = chunk << CHUNK_SHIFT;
+			for (int i = 0; i < length; i++) {
+				buffer.putInt(source.getP1Id(first + i));
+				buffer.putInt(source.getP2Id(first + i));
+				buffer.putInt(source.getNameId(first + i));
+			}
+			buffer.clear();
+			chunks[chunk] = buffer;
+		}
+		return chunks;
+	}
+
+
+	/**
+	 * @effects returns the name dictionary of source.
+	 **/
+	private static String[] copyNames(SegmentStore source) {
+		String[] names = new String[source.getNameCount()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = source.getName(i);
+		}
+		return names;
+	}
+
+
+	/**
+	 * @effects returns true iff the chunks of the representation invariant
+	 *          hold, which takes time proportional to the number of chunks.
+	 **/
+	private boolean checkRep() {
+		return pointChunks != null && segmentChunks != null && names != null &&
+			   pointChunks.length == chunkCount(pointCount) &&
+			   segmentChunks.length == chunkCount(segmentCount);
+	}
+
+
+	/**
+	 * @effects returns true iff the ids of every segment meet the
+	 *          representation invariant, which reads every segment.
+	 **/
+	private boolean checkSegments() {
+		for (int i = 0; i < segmentCount; i++) {
+			int p1Id = getP1Id(i);
+			int p2Id = getP2Id(i);
+			int nameId = getNameId(i);
+			if (p1Id < 0 || p1Id >= pointCount || p2Id < 0 || p2Id >= pointCount ||
+					nameId < 0 || nameId >= names.length) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,206 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A DistanceMatrix computes the shortest distances from many points of a
+ * RoadGraph to many others, such as from depots to jobs.
+ * <p>
+ * Every row of a matrix is one one-to-many Dijkstra search from its start
+ * point, which stops as soon as it has settled every destination. The rows
+ * are computed in parallel on a ForkJoinPool, each by a RouteFinder the
+ * row borrows from a pool owned by the call, so the searches share nothing
+ * but the immutable graph and the result array, and the work scales with
+ * the number of cores. A call makes about one RouteFinder per thread that
+ * runs its rows, and drops them all when it returns. Distances are written
+ * straight into a flat array, and no Route is built unless computeRoutes()
+ * asks for them.
+ * <p>
+ * A DistanceMatrix may be used by any number of threads at once.
+ */
+public class DistanceMatrix {
+
+	private final RoadGraph graph;
+	private final ForkJoinPool pool;
+
+	// Abstraction function: a DistanceMatrix computes distances in graph,
+	// on pool.
+	//
+	// Representation invariant: graph != null && pool != null.
+
+
+	/**
+	 * Constructs a new DistanceMatrix.
+	 * @requires graph != null
+	 * @effects Constructs a new DistanceMatrix that computes distances in
+	 *          graph on the common ForkJoinPool.
+	 **/
+	public DistanceMatrix(RoadGraph graph) {
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * Constructs a new DistanceMatrix.
+	 * @requires graph != null && pool != null
+	 * @effects Constructs a new DistanceMatrix that computes distances in
+	 *          graph on pool.
+	 **/
+	public DistanceMatrix(RoadGraph graph, ForkJoinPool pool) {
+		this.graph = graph;
+		this.pool = pool;
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Computes the distances from some points to others.
+	 * @requires from != null && to != null && neither contains null
+	 * @return a flat, row-major array d of from.length * to.length entries
+	 *         such that d[i * to.length + j] is the length, in kilometers, of
+	 *         a shortest path in the graph from from[i] to to[j], 0 if they
+	 *         are the same node, or Double.POSITIVE_INFINITY if there is no
+	 *         path or either point is not a node of the graph.
+	 * @throws IllegalArgumentException if from.length * to.length is more
+	 *         than Integer.MAX_VALUE.
+	 **/
+	public double[] computeDistances(GeoPoint[] from, GeoPoint[] to) {
+		double[] distances = new double[cellCount(from, to)];
+		pool.invoke(new RowsTask(nodeIds(from), nodeIds(to), distances, null,
+								 new ConcurrentLinkedQueue<>(), 0, from.length));
+		return distances;
+	}
+
+
+	/**
+	 * Computes the shortest routes from some points to others.
+	 * @requires from != null && to != null && neither contains null
+	 * @return a flat, row-major array r of from.length * to.length entries
+	 *         such that r[i * to.length + j] is a shortest Route from from[i]
+	 *         to to[j], or null if there is no route of at least one segment
+	 *         between them.
+	 * @throws IllegalArgumentException if from.length * to.length is more
+	 *         than Integer.MAX_VALUE.
+	 **/
+	public Route[] computeRoutes(GeoPoint[] from, GeoPoint[] to) {
+		double[] distances = new double[cellCount(from, to)];
+		Route[] routes = new Route[distances.length];
+		pool.invoke(new RowsTask(nodeIds(from), nodeIds(to), distances, routes,
+								 new ConcurrentLinkedQueue<>(), 0, from.length));
+		return routes;
+	}
+
+
+	/**
+	 * Returns the graph this computes distances in.
+	 * @return the graph this computes distances in.
+	 **/
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+
+	/**
+	 * @effects returns from.length * to.length.
+	 * @throws IllegalArgumentException if that is more than
+	 *         Integer.MAX_VALUE, the most entries an array can hold.
+	 **/
+	private static int cellCount(GeoPoint[] from, GeoPoint[] to) {
+		try {
+			return Math.multiplyExact(from.length, to.length);
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("a " + from.length + " by " + to.length +
+											   " matrix is too large for an array");
+		}
+	}
+
+
+	/**
+	 * @effects returns the node ids of points, -1 for points that are not
+	 *          nodes.
+	 **/
+	private int[] nodeIds(GeoPoint[] points) {
+		int[] nodeIds = new int[points.length];
+		for (int i = 0; i < points.length; i++) {
+			nodeIds[i] = graph.getNodeId(points[i]);
+		}
+		return nodeIds;
+	}
+
+
+	/**
+	 * A RowsTask computes rows first to last - 1 of a matrix, splitting
+	 * them in halves until a single row is left. Rows borrow their
+	 * RouteFinder from finders, the idle finders of the call, and give it
+	 * back when done.
+	 **/
+	private final class RowsTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] sources;
+		private final int[] targets;
+		private final double[] distances;
+		private final Route[] routes;
+		private final Queue<RouteFinder> finders;
+		private final int first;
+		private final int last;
+
+
+		RowsTask(int[] sources, int[] targets, double[] distances, Route[] routes,
+				 Queue<RouteFinder> finders, int first, int last) {
+			this.sources = sources;
+			this.targets = targets;
+			this.distances = distances;
+			this.routes = routes;
+			this.finders = finders;
+			this.first = first;
+			this.last = last;
+		}
+
+
+		@Override
+		protected void compute() {
+			if (last - first > 1) {
+				int middle = (first + last) >>> 1;
+				invokeAll(new RowsTask(sources, targets, distances, routes, finders, first, middle),
+						  new RowsTask(sources, targets, distances, routes, finders, middle, last));
+				return;
+			}
+			if (last == first) {
+				return;
+			}
+			int row = first * targets.length;
+			int source = sources[first];
+			if (source < 0) {
+				Arrays.fill(distances, row, row + targets.length, Double.POSITIVE_INFINITY);
+				return;
+			}
+			RouteFinder finder = finders.poll();
+			if (finder == null) {
+				finder = new RouteFinder(graph, false);
+			}
+			finder.findDistances(source, targets, distances, row);
+			if (routes != null) {
+				for (int j = 0; j < targets.length; j++) {
+					if (targets[j] >= 0) {
+						routes[row + j] = finder.routeTo(targets[j]);
+					}
+				}
+			}
+			finders.add(finder);
+		}
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		return graph != null && pool != null;
+	}
+}
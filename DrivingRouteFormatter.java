@@ -1,6 +1,6 @@
 package homework1;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
 import java.util.Iterator;
 
 /**
@@ -24,7 +24,7 @@ import java.util.Iterator;
  * kilometer precision. Each line should be terminated by a newline and
  * should include no extra spaces other than those shown above.
  */
-public class DrivingRouteFormatter extends RouteFormatter {
+public class DrivingRouteFormatter extends RouteFormatter implements StepFormatter {
   
   	/**
      * Computes a single line of a multi-line directions String that
@@ -51,34 +51,53 @@ public class DrivingRouteFormatter extends RouteFormatter {
      * above.
      **/
   	public String computeLine(GeoFeature geoFeature, double origHeading) {
-  		
-  		// Implementation hint:
-		// You may find the class java.text.DecimalFormat useful when
-		// implementing this method. More info can be found at:
-  	    // http://docs.oracle.com/javase/tutorial/java/data/numberformat.html
-  		// and at:
-  		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
-		   		
+  		return lineToString(geoFeature, origHeading);
+  	}
+
+
+  	/**
+     * Appends the lines computed by computeLine() for geoFeature to out,
+     * one segment at a time, without building intermediate Strings.
+     * @requires out != null && 0 <= origHeading < 360
+     * @param out the destination of the directions.
+     * @param geoFeature the geographical feature to traverse.
+     * @param origHeading the initial heading.
+     * @throws IOException if out throws IOException.
+     **/
+  	public void appendLine(Appendable out, GeoFeature geoFeature, double origHeading)
+  			throws IOException {
+
 		double directions=origHeading;
 		Iterator<GeoSegment> it = geoFeature.getGeoSegments();
-		String heading="";
-		String format="";
 
 		while(it.hasNext()){
 
 			GeoSegment gs= it.next();
-			heading = getTurnString(directions,gs.getHeading());
-			directions=gs.getHeading();
-			
-			double length = gs.getLength();
-			DecimalFormat decimal = new DecimalFormat("#.#");
-			length=Double.valueOf(decimal.format(length));
-			String street = gs.getName();
+			double segmentHeading = gs.getHeading();
+			String heading = getTurnString(directions,segmentHeading);
+			directions=segmentHeading;
 			
-			format += heading + " onto " + street + " and go " +length+ " kilometers."+"\n";
+			appendStep(out, heading, gs.getName(), gs.getLength());
 		}
-		
-		return format;
+  	}
+
+
+  	/**
+     * Appends the line of driving directions for one segment to out.
+     * @requires out != null && turn != null && name != null && length >= 0
+     * @param out the destination of the line.
+     * @param turn the turn onto the segment, as returned by getTurnString().
+     * @param name the name of the segment.
+     * @param length the length of the segment, in kilometers.
+     * @effects appends to out a line such as
+     * 			"Turn left onto Hagalil and go 1.4 kilometers.\n".
+     * @throws IOException if out throws IOException.
+     **/
+  	public void appendStep(Appendable out, String turn, String name, double length)
+  			throws IOException {
+		out.append(turn).append(" onto ").append(name).append(" and go ");
+		appendTenths(out, length);
+		out.append(" kilometers.\n");
   	}
 
 }
@@ -24,6 +24,82 @@ public class DrivingRouteFormatterTest {
 			System.out.println("Test passed correctly");
 		else
 			System.out.println("Test not passed correctly");
+
+		StringBuilder streamed = new StringBuilder();
+		try {
+			mDirections.computeDirections(mShortRoute, 0, streamed);
+		} catch (java.io.IOException e) {
+			streamed.setLength(0);
+		}
+		if (streamed.toString().equals(directions))
+			System.out.println("Streaming test passed correctly");
+		else
+			System.out.println("Streaming test not passed correctly");
+
+		java.util.List<Route> routes = new java.util.ArrayList<>();
+		double[] headings = new double[500];
+		for (int i = 0; i < headings.length; i++) {
+			routes.add(mShortRoute);
+			headings[i] = (i * 7) % 360;
+		}
+		BatchMetrics metrics = new BatchMetrics();
+		java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(2);
+		java.util.List<String> batch;
+		try {
+			batch = mDirections.computeDirectionsBatch(routes, headings, executor, 3, metrics);
+		} finally {
+			executor.shutdown();
+		}
+		boolean ordered = batch.size() == headings.length &&
+			mDirections.computeDirectionsBatch(routes, headings).equals(batch);
+		for (int i = 0; i < headings.length; i++) {
+			ordered &= batch.get(i).equals(mDirections.computeDirections(mShortRoute, headings[i]));
+		}
+		if (ordered && metrics.getRoutes() == headings.length && metrics.getBatches() == 1 &&
+				metrics.getQueueDepth() == 0 && metrics.getMaxQueueDepth() <= 3)
+			System.out.println("Batch test passed correctly");
+		else
+			System.out.println("Batch test not passed correctly");
+
+		// a route that fails with an Error fails the whole batch.
+		RouteFormatter failing = new DrivingRouteFormatter() {
+			public void computeDirections(Route route, double heading, Appendable out)
+					throws java.io.IOException {
+				if (heading == headings[100]) {
+					throw new AssertionError("failing route");
+				}
+				super.computeDirections(route, heading, out);
+			}
+		};
+		boolean failed = false;
+		try {
+			failing.computeDirectionsBatch(routes, headings);
+		} catch (AssertionError e) {
+			failed = "failing route".equals(e.getMessage());
+		}
+
+		// a rejected route fails the batch once the submitted ones are done.
+		BatchMetrics rejectedMetrics = new BatchMetrics();
+		java.util.concurrent.ExecutorService rejecting = java.util.concurrent.Executors.newFixedThreadPool(2);
+		java.util.concurrent.atomic.AtomicInteger submitted = new java.util.concurrent.atomic.AtomicInteger();
+		boolean rejected = false;
+		try {
+			mDirections.computeDirectionsBatch(routes, headings, task -> {
+				if (submitted.incrementAndGet() > 10) {
+					throw new java.util.concurrent.RejectedExecutionException();
+				}
+				rejecting.execute(task);
+			}, 3, rejectedMetrics);
+		} catch (java.util.concurrent.RejectedExecutionException e) {
+			rejected = rejectedMetrics.getRoutes() == 10 && rejectedMetrics.getQueueDepth() == 0 &&
+					   rejectedMetrics.getBatches() == 1 && rejectedMetrics.getElapsedNanos() > 0;
+		} finally {
+			rejecting.shutdown();
+		}
+		if (failed && rejected)
+			System.out.println("Failing batch test passed correctly");
+		else
+			System.out.println("Failing batch test not passed correctly");
 	}
   	
   	
@@ -46,14 +46,22 @@ public class GeoFeature {
 	// info can be found at:
 	//   http://docs.oracle.com/javase/8/docs/api/java/util/List.html
 	
-	 private final ArrayList<GeoSegment> geoSegmentList; 
+	 // shares its elements with the GeoFeature this was created from by
+	 // addSegment(), so appending a segment does not copy the sequence.
+	 private final PersistentSequence<GeoSegment> geoSegmentList; 
+
+	 // cumulativeLengths[i] is the total length of the first i segments,
+	 // shared the same way as geoSegmentList.
+	 private final PersistentDoubleSequence cumulativeLengths;
 
 	// Abstraction function: geoSegmentList is an ordered list of GeoSegments that
 	// represents the geoSegment sequence that makes up this geographic feature.
 	// 
 	// Representation invariant: GeoSegments != null && GeoSegments.size > 0 &&
 	// for every two consecutive GeoSegments gs_1 and gs_2 in geoSegmentList gs_1 != null &&
-	// gs_2 != null && gf_1.end == gf_2.start && gs_1.name == gf_2.name.
+	// gs_2 != null && gf_1.end == gf_2.start && gs_1.name == gf_2.name &&
+	// cumulativeLengths.size = geoSegmentList.size + 1 && cumulativeLengths[0] = 0 &&
+	// cumulativeLengths[i + 1] = cumulativeLengths[i] + geoSegmentList[i].length.
 
 	
 	/**
@@ -67,10 +75,9 @@ public class GeoFeature {
      *          r.end = gs.p2
      **/
   	public GeoFeature(GeoSegment gs) {
-  		// TODO Implement this constructor
-  		geoSegmentList = new ArrayList<GeoSegment>();
-  		geoSegmentList.add(gs);
-  		assert(this.checkRep());
+  		geoSegmentList = new PersistentSequence<GeoSegment>().append(gs);
+  		cumulativeLengths = new PersistentDoubleSequence(0).append(gs.getLength());
+  		assert(!ValidationLevel.onConstruction() || this.checkRep());
   	}
   	
 	/**
@@ -85,8 +92,30 @@ public class GeoFeature {
      *          r.length = the sum of lengths of the segments in gsList 
      **/
   	public GeoFeature(ArrayList<GeoSegment> gsList) {
-  		geoSegmentList = (ArrayList<GeoSegment>)gsList.clone();
-  		assert(this.checkRep());
+  		geoSegmentList = new PersistentSequence<GeoSegment>(gsList);
+  		PersistentDoubleSequence lengths = new PersistentDoubleSequence(0);
+  		for (GeoSegment segment: gsList) {
+  			lengths = lengths.append(lengths.getLast() + segment.getLength());
+  		}
+  		cumulativeLengths = lengths;
+  		assert(!ValidationLevel.onConstruction() || this.checkRep());
+  	}
+
+
+	/**
+     * Constructs a new GeoFeature.
+     * @requires gsList != null && gsList.size() > 0 && all GeoSegment in gsList have the same name
+     * @requires cumulativeLengths holds the cumulative lengths of gsList
+     * @effects Constructs a new GeoFeature, r, with the segments in gsList,
+     *          sharing gsList and cumulativeLengths rather than copying them. Only the last segment
+     *          of gsList is validated, since the others already belong to
+     *          a GeoFeature.
+     **/
+  	private GeoFeature(PersistentSequence<GeoSegment> gsList,
+  			PersistentDoubleSequence cumulativeLengths) {
+  		geoSegmentList = gsList;
+  		this.cumulativeLengths = cumulativeLengths;
+  		assert(!ValidationLevel.onConstruction() || this.checkLastSegment());
   	}
   	
  	/**
@@ -94,9 +123,9 @@ public class GeoFeature {
       * @return name of geographic feature
       */
   	public String getName() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		String name = geoSegmentList.get(0).getName();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return name;
   	}
 
@@ -106,9 +135,9 @@ public class GeoFeature {
      * @return location of the start of the geographic feature.
      */
   	public GeoPoint getStart() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		GeoPoint start = geoSegmentList.get(0).getP1();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return start;
   	}
 
@@ -118,9 +147,9 @@ public class GeoFeature {
      * @return location of the end of the geographic feature.
      */
   	public GeoPoint getEnd() {
-  		assert(this.checkRep());
-  		GeoPoint end = geoSegmentList.get(geoSegmentList.size() - 1).getP2();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		GeoPoint end = geoSegmentList.getLast().getP2();
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return end;
   	}
 
@@ -132,9 +161,9 @@ public class GeoFeature {
      *         start of the geographic feature is 0.
      */
   	public double getStartHeading() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		double startHeading = geoSegmentList.get(0).getHeading();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return startHeading;
   	}
 
@@ -146,9 +175,9 @@ public class GeoFeature {
      *         end of the geographic feature is 0.
      */
   	public double getEndHeading() {
-  		assert(this.checkRep());
-  		double endHeading = geoSegmentList.get(geoSegmentList.size() - 1).getHeading();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		double endHeading = geoSegmentList.getLast().getHeading();
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return endHeading;
   	}
 
@@ -161,15 +190,31 @@ public class GeoFeature {
      *         values are not necessarily equal.
      */
   	public double getLength() {
-  		assert(this.checkRep());
-  		
-  		double length = 0;
-  		for (GeoSegment segment: geoSegmentList) {
-  			length += segment.getLength();
-  		}
-  		
-  		assert(this.checkRep());
-  		return length;
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return cumulativeLengths.getLast();
+  	}
+
+
+  	/**
+  	 * Returns the number of segments in the geographic feature.
+     * @return the number of GeoSegments returned by getGeoSegments().
+     */
+  	public int getSegmentCount() {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return geoSegmentList.size();
+  	}
+
+
+  	/**
+  	 * Returns the length of part of the geographic feature, in kilometers.
+  	 * @requires 0 <= i <= j <= this.getSegmentCount()
+  	 * @return the total length of the segments a[i] through a[j - 1],
+  	 *         where a[n] denotes the nth element of getGeoSegments().
+  	 * @throws IndexOutOfBoundsException if i or j is out of range.
+  	 */
+  	public double lengthBetween(int i, int j) {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return cumulativeLengths.get(j) - cumulativeLengths.get(i);
   	}
 
 
@@ -183,11 +228,10 @@ public class GeoFeature {
      *    	   r.length = this.length + gs.length
      **/
   	public GeoFeature addSegment(GeoSegment gs) {
-  		assert(this.checkRep());
-  		ArrayList<GeoSegment> newGeoSegmentList = (ArrayList<GeoSegment>)this.geoSegmentList.clone();
-  	    newGeoSegmentList.add(gs);
-  		GeoFeature newGeoFeature = new GeoFeature(newGeoSegmentList);
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		GeoFeature newGeoFeature = new GeoFeature(geoSegmentList.append(gs),
+  				cumulativeLengths.append(cumulativeLengths.getLast() + gs.getLength()));
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return newGeoFeature;
   	}
 
@@ -211,9 +255,9 @@ public class GeoFeature {
      * @see homework1.GeoSegment
      */
   	public Iterator<GeoSegment> getGeoSegments() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		Iterator<GeoSegment> geoSegments = geoSegmentList.iterator();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return geoSegments;
   	}
 
@@ -225,13 +269,13 @@ public class GeoFeature {
      *          the same elements in the same order).
      **/
   	public boolean equals(Object obj) {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
 		if (!(obj instanceof GeoFeature))
 			return false;
 		GeoFeature otherGeoFeature = (GeoFeature)obj;
 		boolean isEqual = otherGeoFeature.getName().equals(this.getName()) && 
 				otherGeoFeature.geoSegmentList.equals(this.geoSegmentList);
-		assert(this.checkRep());
+		assert(!ValidationLevel.onAccess() || this.checkRep());
 		return isEqual;
   	}
 
@@ -250,12 +294,12 @@ public class GeoFeature {
    	 * @return a string representation of this.
      **/
   	public String toString() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		String representationString = this.getName() + ": " + this.getStart() + " ";
   		for (GeoSegment segment:geoSegmentList) {
   			representationString += String.format("==> %s", segment.getP2());
   		}
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return representationString;
   	}
   
@@ -264,7 +308,8 @@ public class GeoFeature {
      * @effects returns true iff the representation invariant holds.
      **/
   	private boolean checkRep() {
-  		if (geoSegmentList == null || geoSegmentList.size() < 1 || geoSegmentList.contains(null)) {
+  		if (geoSegmentList == null || geoSegmentList.size() < 1 || geoSegmentList.contains(null) ||
+  				cumulativeLengths == null || cumulativeLengths.size() != geoSegmentList.size() + 1) {
   			return false;
   		}
   		GeoSegment previousSegment = null;
@@ -280,4 +325,24 @@ public class GeoFeature {
   		}
   		return true;
   	}
+
+
+  	/**
+     * @effects returns true iff the last segment of geoSegmentList is not
+     *          null and, if it has a predecessor, has the same name as it
+     *          and starts where it ends.
+     **/
+  	private boolean checkLastSegment() {
+  		if (geoSegmentList == null || geoSegmentList.size() < 1 || geoSegmentList.getLast() == null ||
+  				cumulativeLengths == null || cumulativeLengths.size() != geoSegmentList.size() + 1) {
+  			return false;
+  		}
+  		if (geoSegmentList.size() == 1) {
+  			return true;
+  		}
+  		GeoSegment previousSegment = geoSegmentList.get(geoSegmentList.size() - 2);
+  		GeoSegment lastSegment = geoSegmentList.getLast();
+  		return previousSegment.getName().equals(lastSegment.getName()) &&
+  			   previousSegment.getP2().equals(lastSegment.getP1());
+  	}
 }
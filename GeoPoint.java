@@ -4,6 +4,8 @@
 
 package homework1;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * A GeoPoint is a point on the earth. GeoPoints are immutable.
  * <p>
@@ -62,10 +64,10 @@ public class GeoPoint {
   	public static final int MILLION = 1000000;
   	
   	// the latitude of the geo point messured in millionths of a degree.
-  	private int latitude;
+  	private final int latitude;
   	
   	// the longitude of the geo point messured in millionths of a degree.
-    private int longitude;
+    private final int longitude;
     
 	// Implementation hint:
 	// Doubles and floating point math can cause some problems. The exact
@@ -87,13 +89,15 @@ public class GeoPoint {
 
 	/**
 	 * checks if rep.invariant is being violated.
+	 * @return true, so that it can be called from an assert statement.
 	 * @throws AssertionError if representation invariant is violated.
 	 */
-  	private void checkRep(){
+  	private boolean checkRep(){
 		assert((this.longitude <= MAX_LONGITUDE) && (this.longitude >= MIN_LONGITUDE)):
 				"longitude is not within legal limits!";
 		assert((this.latitude <= MAX_LATITUDE) && (this.latitude >= MIN_LATITUDE)):
 				"latitude is not within legal limits!";
+		return true;
   	}
   	
   	
@@ -109,7 +113,23 @@ public class GeoPoint {
   	public GeoPoint(int latitude, int longitude) {
 		this.latitude=latitude;
 		this.longitude=longitude;
-		checkRep();
+		assert(!ValidationLevel.onConstruction() || checkRep());
+  	}
+
+
+
+  	/**
+  	 * Returns a GeoPoint from a latitude and longitude, sharing instances
+  	 * between equal points where it can.
+     * @requires the point given by (latitude, longitude) in millionths
+   	 *           of a degree is valid, as for GeoPoint(latitude, longitude)
+   	 * @return a GeoPoint equal to new GeoPoint(latitude, longitude). Points
+   	 *         returned by of() are kept in a fixed-size cache, so equal
+   	 *         points asked for close together in time are usually the same
+   	 *         object, which saves memory and makes equals() succeed at once.
+   	 **/
+  	public static GeoPoint of(int latitude, int longitude) {
+  		return Interned.of(latitude, longitude);
   	}
 
   	 
@@ -118,7 +138,7 @@ public class GeoPoint {
      * @return the latitude of this in millionths of degrees.
      */
   	public int getLatitude() {
-  		checkRep();
+  		assert(!ValidationLevel.onAccess() || checkRep());
   		return latitude;
   	}
 
@@ -128,7 +148,7 @@ public class GeoPoint {
      * @return the longitude of this in millionths of degrees.
      */
   	public int getLongitude() {
-  		checkRep();
+  		assert(!ValidationLevel.onAccess() || checkRep());
   		return longitude;
   	}
 
@@ -140,20 +160,9 @@ public class GeoPoint {
      *         the Technion approximation.
      **/
   	public double distanceTo(GeoPoint gp) {
-  		checkRep();
-  		//longitude and Latitude
-        int fistLongitude = longitude;
-        int firstLatitude = latitude;
-        int secondLongitude = gp.getLongitude();
-        int secondLatitude = gp.getLatitude();
-
-        //differences
-		double y = Math.abs(firstLatitude - secondLatitude)*KM_PER_DEGREE_LATITUDE;
-        double x = Math.abs(fistLongitude - secondLongitude)*KM_PER_DEGREE_LONGITUDE;
-
-        //Final distance calculation (divided by million).
-        double DistanceToPoint =Math.sqrt(Math.pow(x,2)+Math.pow(y,2))/MILLION;
-        checkRep();
+  		assert(!ValidationLevel.onAccess() || checkRep());
+        double DistanceToPoint = distance(latitude, longitude, gp.getLatitude(), gp.getLongitude());
+        assert(!ValidationLevel.onAccess() || checkRep());
         return DistanceToPoint;
   	}
 
@@ -176,19 +185,69 @@ public class GeoPoint {
 		 // degrees and degrees increase in the clockwise direction. By
 		 // mathematical convention, "east" is 0 degrees, and degrees
 		 // increase in the counterclockwise direction. 
-  		checkRep();
-        int firstLatitude = latitude;
-        int fistLongitude = longitude;
+  		assert(!ValidationLevel.onAccess() || checkRep());
+        double direction = heading(latitude, longitude, gp.getLatitude(), gp.getLongitude());
+        assert(!ValidationLevel.onAccess() || checkRep());
+        return direction;
+  	}
 
-        int secondLongitude = gp.getLongitude();
-        int secondLatitude = gp.getLatitude();
 
-        int LongitudeDiff = fistLongitude - secondLongitude;
+  	/**
+     * Computes the distance between two points given by their coordinates,
+     * without creating GeoPoints for them.
+     * @requires the coordinates, in millionths of degrees, describe valid
+     *           GeoPoints
+     * @return the distance from (firstLatitude, firstLongitude) to
+     *         (secondLatitude, secondLongitude), as computed by distanceTo().
+     **/
+  	static double distance(int firstLatitude, int firstLongitude,
+  						   int secondLatitude, int secondLongitude) {
+        //differences
+		double y = Math.abs(firstLatitude - secondLatitude)*KM_PER_DEGREE_LATITUDE;
+        double x = Math.abs(firstLongitude - secondLongitude)*KM_PER_DEGREE_LONGITUDE;
+
+        //Final distance calculation (divided by million).
+        return Math.sqrt(Math.pow(x,2)+Math.pow(y,2))/MILLION;
+  	}
+
+
+  	/**
+     * Computes the compass heading between two points given by their
+     * coordinates, without creating GeoPoints for them.
+     * @requires the coordinates, in millionths of degrees, describe two
+     *           different valid GeoPoints
+     * @return the compass heading from (firstLatitude, firstLongitude) to
+     *         (secondLatitude, secondLongitude), as computed by headingTo().
+     **/
+  	static double heading(int firstLatitude, int firstLongitude,
+  						  int secondLatitude, int secondLongitude) {
+        int LongitudeDiff = firstLongitude - secondLongitude;
 		int LatitudeDiff = firstLatitude - secondLatitude;
 
-        double direction = Math.abs((-Math.toDegrees(Math.atan2(LatitudeDiff,LongitudeDiff)) + 270) % 360);
-        checkRep();
-        return direction;
+        return Math.abs((-Math.toDegrees(Math.atan2(LatitudeDiff,LongitudeDiff)) + 270) % 360);
+  	}
+
+
+  	/**
+     * Computes the point a fraction of the way from one point to another,
+     * interpolating linearly in millionths of degrees.
+     * @requires from != null && to != null
+     * @return from if fraction <= 0, to if fraction >= 1, and otherwise the
+     *         GeoPoint fraction of the way from from to to, rounded to the
+     *         nearest millionth of a degree.
+     **/
+  	static GeoPoint between(GeoPoint from, GeoPoint to, double fraction) {
+  		if (fraction <= 0) {
+  			return from;
+  		}
+  		if (fraction >= 1) {
+  			return to;
+  		}
+  		int latitude = from.latitude +
+  			(int)Math.round(fraction * ((long)to.latitude - from.latitude));
+  		int longitude = from.longitude +
+  			(int)Math.round(fraction * ((long)to.longitude - from.longitude));
+  		return of(latitude, longitude);
   	}
 
 
@@ -198,16 +257,19 @@ public class GeoPoint {
      * 		   gp.latitude = this.latitude && gp.longitude = this.longitude
      **/
   	public boolean equals(Object gp) {
-  		checkRep();
+  		assert(!ValidationLevel.onAccess() || checkRep());
+		if (gp == this) {
+			return true;
+		}
 		if(gp !=null && gp instanceof GeoPoint) {
 			GeoPoint recievedGP = (GeoPoint) gp;
 			if (recievedGP.getLatitude() == this.latitude &&
 					recievedGP.getLongitude() == this.longitude) {
-				checkRep();
+				assert(!ValidationLevel.onAccess() || checkRep());
 				return true;
 			}
 		}
-		checkRep();
+		assert(!ValidationLevel.onAccess() || checkRep());
 		return false;
   	}
 
@@ -217,20 +279,88 @@ public class GeoPoint {
      * @return a hash code value for this GeoPoint.
    	 **/
   	public int hashCode() {
-  		checkRep();
-		int code = longitude + latitude;
-		checkRep();
+  		assert(!ValidationLevel.onAccess() || checkRep());
+		// all 64 bits of the coordinates are mixed, so points that share a
+		// coordinate sum or differ in few bits do not collide.
+		long mixed = mix(key(latitude, longitude));
+		int code = (int)(mixed ^ (mixed >>> 32));
+		assert(!ValidationLevel.onAccess() || checkRep());
     	return code;
   	}
 
 
+  	/**
+     * Packs the coordinates of a point into a long.
+     * @return a long that differs for every pair of coordinates, and is never
+     *         Long.MIN_VALUE for the coordinates of a valid GeoPoint.
+     **/
+  	static long key(int latitude, int longitude) {
+  		return (long)latitude << 32 | (longitude & 0xFFFFFFFFL);
+  	}
+
+
+  	/**
+     * Scrambles the bits of a long, so that every bit of the result depends
+     * on every bit of value (the finalizer of the SplitMix64 generator).
+     * @return a one-to-one function of value.
+     **/
+  	static long mix(long value) {
+  		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+  		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+  		return value ^ (value >>> 31);
+  	}
+
+
   	/**
      * Returns a string representation of this GeoPoint.
      * @return a string representation of this GeoPoint.
      **/
   	public String toString() {
-  		checkRep();
+  		assert(!ValidationLevel.onAccess() || checkRep());
   		return "("+latitude+", "+longitude+")";
   	}
 
+
+  	/**
+  	 * The cache of GeoPoint.of(). It is only created on the first call.
+  	 * <p>
+  	 * The cache is a two-way set-associative table of 2^CACHE_BITS entries,
+  	 * each point hashing to a pair of adjacent entries. A point missing from
+  	 * its pair takes the first entry, moving the point there to the second
+  	 * and dropping the one in the second. Entries are
+  	 * read and written without locks; two threads asking for the same new
+  	 * point at once may each create one, which only costs the sharing, and
+  	 * the table never holds more than 2^CACHE_BITS points.
+  	 */
+  	private static final class Interned {
+
+  		private static final int CACHE_BITS = 18;
+
+  		private static final AtomicReferenceArray<GeoPoint> entries =
+  			new AtomicReferenceArray<>(1 << CACHE_BITS);
+
+
+  		/**
+  		 * @effects returns a cached GeoPoint (latitude, longitude), caching a
+  		 *          new one if there is none.
+  		 **/
+  		static GeoPoint of(int latitude, int longitude) {
+  			int first = (int)(mix(key(latitude, longitude)) >>> (Long.SIZE - CACHE_BITS)) & ~1;
+  			GeoPoint point = entries.get(first);
+  			if (point != null && point.latitude == latitude && point.longitude == longitude) {
+  				return point;
+  			}
+  			GeoPoint second = entries.get(first + 1);
+  			if (second != null && second.latitude == latitude && second.longitude == longitude) {
+  				return second;
+  			}
+  			GeoPoint created = new GeoPoint(latitude, longitude);
+  			if (point != null) {
+  				entries.set(first + 1, point);
+  			}
+  			entries.set(first, created);
+  			return created;
+  		}
+  	}
+
 }
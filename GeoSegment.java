@@ -45,10 +45,15 @@ public class GeoSegment  {
 	private final GeoPoint p2;
 	private final String name;
 
+	// length and heading are computed once, since GeoSegments are immutable.
+	private final double length;
+	private final double heading;
+
 	
 	// Abstraction function: p1 represents the first endpoint of the segment, 
 	// p2 represents the second endpoint of the segment. name represents the name of the segment. 
 	// If p1 == p2 then the length of the segment is 0 and the heading is 0.
+	// length and heading cache the length and heading of the segment.
 	// Representation invariant: name != null && p1 != null && p2 != null.
 	
 	
@@ -58,11 +63,12 @@ public class GeoSegment  {
      * @effects constructs a new GeoSegment with the specified name and endpoints.
      **/
   	public GeoSegment(String name, GeoPoint p1, GeoPoint p2) {
-  		// TODO Implement this method
   		this.name = name;
   		this.p1 = p1;
   		this.p2 = p2;
-  		assert(this.checkRep());
+  		this.length = p1.equals(p2) ? 0 : p1.distanceTo(p2);
+  		this.heading = p1.equals(p2) ? 0 : p1.headingTo(p2);
+  		assert(!ValidationLevel.onConstruction() || this.checkRep());
   	}
 
 
@@ -72,9 +78,9 @@ public class GeoSegment  {
      *         && gs.p1 = this.p2 && gs.p2 = this.p1
      **/
   	public GeoSegment reverse() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		GeoSegment reversed = new GeoSegment(this.name, this.p2, this.p1);
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return reversed;
   	}
 
@@ -84,9 +90,9 @@ public class GeoSegment  {
      * @return the name of this GeoSegment.
      */
   	public String getName() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		String name = this.name;
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return name;
   	}
 
@@ -96,7 +102,7 @@ public class GeoSegment  {
      * @return first endpoint of the segment.
      */
   	public GeoPoint getP1() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return p1;
   	}
 
@@ -106,7 +112,7 @@ public class GeoSegment  {
      * @return second endpoint of the segment.
      */
   	public GeoPoint getP2() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return p2;
   	}
 
@@ -117,9 +123,7 @@ public class GeoSegment  {
      *         Technion approximation.
      */
   	public double getLength() {
-  		assert(this.checkRep());
-  		double length = p1.equals(p2) ? 0 : p1.distanceTo(p2);
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return length;
   	}
 
@@ -132,9 +136,7 @@ public class GeoSegment  {
      *         If this.length == 0, returns 0.
      **/
   	public double getHeading() {
-  		assert(this.checkRep());
-  		double heading = p1.equals(p2) ? 0 : p1.headingTo(p2);
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return heading;
   	}
 
@@ -145,14 +147,14 @@ public class GeoSegment  {
      *         && gs.name = this.name && gs.p1 = this.p1 && gs.p2 = this.p2
    	 **/
   	public boolean equals(Object o) {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
 		if (!(o instanceof GeoSegment))
 			return false;
 		GeoSegment otherGeoSegment = (GeoSegment)o;
 		boolean isEqual = otherGeoSegment.name.equals(this.name) && 
 				otherGeoSegment.p1.equals(this.p1) && 
 				otherGeoSegment.p2.equals(this.p2);
-		assert(this.checkRep());
+		assert(!ValidationLevel.onAccess() || this.checkRep());
 		return isEqual;
   	}
 
@@ -162,9 +164,10 @@ public class GeoSegment  {
      * @return a hash code value for this.
      **/
   	public int hashCode() {
-  		assert(this.checkRep());
-    	int hashCode = p1.hashCode() ^ p2.hashCode();
-    	assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+    	// ordered, so that a segment and its reverse do not collide.
+    	int hashCode = 31 * (31 * name.hashCode() + p1.hashCode()) + p2.hashCode();
+    	assert(!ValidationLevel.onAccess() || this.checkRep());
     	return hashCode;
   	}
 
@@ -174,7 +177,7 @@ public class GeoSegment  {
      * @return a string representation of this.
      **/
   	public String toString() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return String.format("%s: %s --> %s", name, p1, p2);
   	}
   	
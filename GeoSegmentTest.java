@@ -78,7 +78,25 @@ public class GeoSegmentTest {
 		show("hashCode()");
 		show(".equals() objects must have the same .hashCode()",
 			gsNorth.hashCode() == gsNorth2.hashCode());
+		show("A segment and its reverse have different hash codes",
+			gsNorth.hashCode() != gsNorth.reverse().hashCode());
+		show("Points on the same anti-diagonal have different hash codes",
+			new GeoPoint(32783098, 35014528).hashCode() !=
+			new GeoPoint(32783099, 35014527).hashCode());
 		   		
+		show("GeoPoint.of()");
+		GeoPoint interned = GeoPoint.of(32783098, 35014528);
+		show("of() is equal to the constructed point",
+			interned.equals(gpZivSquare) && gpZivSquare.equals(interned));
+		show("of() shares the instance of an equal point",
+			GeoPoint.of(32783098, 35014528) == interned);
+		boolean allEqual = true;
+		for (int i = 0; i < 100000; i++) {
+			GeoPoint point = GeoPoint.of(32783098 + i, 35014528 - i);
+			allEqual &= point.getLatitude() == 32783098 + i && point.getLongitude() == 35014528 - i;
+		}
+		show("of() returns the asked point when the cache is full", allEqual);
+
 		show("reverse()");
 		show("Reversed segment is equal to same segment reversed.",
 			gsEast.reverse().equals(gsEast.reverse()));
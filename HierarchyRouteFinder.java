@@ -0,0 +1,281 @@
+package homework1;
+
+/**
+ * A HierarchyRouteFinder finds shortest routes between points of a RoadGraph
+ * using a ContractionHierarchy of it.
+ * <p>
+ * A query runs two Dijkstra searches at once, forward from the start along
+ * the upward edges of the hierarchy and backward from the destination along
+ * its downward edges, always advancing the one whose next node is closer.
+ * Every node both searches settle joins a path from the start to the
+ * destination, and once neither search can find anything shorter than the
+ * best such path, it is a shortest one. Its edges are then unpacked into
+ * the GeoSegments of the graph.
+ * <p>
+ * Like a RouteFinder, a HierarchyRouteFinder reuses primitive search arrays
+ * for every query and must not be used by more than one thread at a time.
+ * Any number of HierarchyRouteFinders can share one ContractionHierarchy.
+ */
+public class HierarchyRouteFinder {
+
+	private final ContractionHierarchy hierarchy;
+
+	// the state of the forward and backward searches, stamped like
+	// RouteFinder's: an entry is only meaningful if its reached entry
+	// equals search.
+	private final double[] forwardDistances;
+	private final int[] forwardParentEdges;
+	private final int[] forwardReached;
+	private final NodeHeap forwardHeap;
+	private final double[] backwardDistances;
+	private final int[] backwardParentEdges;
+	private final int[] backwardReached;
+	private final NodeHeap backwardHeap;
+	private int search;
+
+	// the node where the searches of the last query met on a shortest path,
+	// or -1, and the length of that path.
+	private int meetingNode;
+	private double bestLength;
+
+	// Abstraction function: a HierarchyRouteFinder finds routes in
+	// hierarchy.getGraph() using hierarchy.
+	//
+	// Representation invariant: hierarchy != null && the search arrays have
+	// one entry per node of hierarchy.getGraph().
+
+
+	/**
+	 * Constructs a new HierarchyRouteFinder.
+	 * @requires hierarchy != null
+	 * @effects Constructs a new HierarchyRouteFinder that queries hierarchy.
+	 **/
+	public HierarchyRouteFinder(ContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+		int nodeCount = hierarchy.getGraph().getNodeCount();
+		forwardDistances = new double[nodeCount];
+		forwardParentEdges = new int[nodeCount];
+		forwardReached = new int[nodeCount];
+		forwardHeap = new NodeHeap(nodeCount);
+		backwardDistances = new double[nodeCount];
+		backwardParentEdges = new int[nodeCount];
+		backwardReached = new int[nodeCount];
+		backwardHeap = new NodeHeap(nodeCount);
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Finds a shortest route between two points.
+	 * @requires from != null && to != null
+	 * @return a ShortestPathResult r such that r.route is a shortest Route
+	 *         of edge segments of the graph from from to to, built by
+	 *         Route.addSegment(), or null if there is no such route of at
+	 *         least one segment (in particular, if from or to is not a node),
+	 *         and r.length is the length of r.route, 0 if from and to are the
+	 *         same node, or Double.POSITIVE_INFINITY if r.route is null
+	 *         otherwise.
+	 **/
+	public ShortestPathResult findRoute(GeoPoint from, GeoPoint to) {
+		long startTime = System.nanoTime();
+		RoadGraph graph = hierarchy.getGraph();
+		int source = graph.getNodeId(from);
+		int target = graph.getNodeId(to);
+		if (source < 0 || target < 0 || source == target) {
+			return new ShortestPathResult(null, source >= 0 && source == target ? 0 : Double.POSITIVE_INFINITY,
+										  0, System.nanoTime() - startTime);
+		}
+		int settled = search(source, target);
+		Route route = null;
+		if (meetingNode >= 0) {
+			route = routeThrough(meetingNode);
+		}
+		return new ShortestPathResult(route, bestLength, settled, System.nanoTime() - startTime);
+	}
+
+
+	/**
+	 * Finds the length of a shortest route between two nodes, without
+	 * building the route.
+	 * @requires 0 <= source, target < hierarchy.getGraph().getNodeCount()
+	 * @return the length, in kilometers, of a shortest path in the graph
+	 *         from node source to node target, 0 if source == target, or
+	 *         Double.POSITIVE_INFINITY if there is no such path.
+	 **/
+	public double findDistance(int source, int target) {
+		search(source, target);
+		return bestLength;
+	}
+
+
+	/**
+	 * Returns the hierarchy this queries.
+	 * @return the hierarchy this queries.
+	 **/
+	public ContractionHierarchy getHierarchy() {
+		return hierarchy;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects runs a bidirectional search from source to target, setting
+	 *          bestLength to the distance between them and meetingNode to
+	 *          the highest-ranked node of a shortest path, or -1 if there
+	 *          is none.
+	 * @return the number of nodes settled by both searches.
+	 **/
+	private int search(int source, int target) {
+		search++;
+		forwardHeap.clear();
+		backwardHeap.clear();
+		reach(forwardDistances, forwardParentEdges, forwardReached, forwardHeap, source, 0, -1);
+		reach(backwardDistances, backwardParentEdges, backwardReached, backwardHeap, target, 0, -1);
+		meetingNode = -1;
+		bestLength = Double.POSITIVE_INFINITY;
+
+		int settled = 0;
+		while (true) {
+			double forwardKey = forwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : forwardHeap.peekKey();
+			double backwardKey = backwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : backwardHeap.peekKey();
+			if (Math.min(forwardKey, backwardKey) >= bestLength) {
+				break;
+			}
+			settled++;
+			if (forwardKey <= backwardKey) {
+				int node = forwardHeap.poll();
+				double distance = forwardDistances[node];
+				meet(node, distance, backwardDistances, backwardReached);
+				if (stalledForward(node, distance)) {
+					continue;
+				}
+				for (int i = hierarchy.getUpStart(node); i < hierarchy.getUpEnd(node); i++) {
+					int next = hierarchy.getUpTarget(i);
+					double nextDistance = distance + hierarchy.getUpWeight(i);
+					if (forwardReached[next] != search || nextDistance < forwardDistances[next]) {
+						reach(forwardDistances, forwardParentEdges, forwardReached, forwardHeap,
+							  next, nextDistance, hierarchy.getUpEdge(i));
+					}
+				}
+			} else {
+				int node = backwardHeap.poll();
+				double distance = backwardDistances[node];
+				meet(node, distance, forwardDistances, forwardReached);
+				if (stalledBackward(node, distance)) {
+					continue;
+				}
+				for (int i = hierarchy.getDownStart(node); i < hierarchy.getDownEnd(node); i++) {
+					int next = hierarchy.getDownSource(i);
+					double nextDistance = distance + hierarchy.getDownWeight(i);
+					if (backwardReached[next] != search || nextDistance < backwardDistances[next]) {
+						reach(backwardDistances, backwardParentEdges, backwardReached, backwardHeap,
+							  next, nextDistance, hierarchy.getDownEdge(i));
+					}
+				}
+			}
+		}
+		return settled;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects records that a search reached node at distance through
+	 *          parentEdge, and queues it.
+	 **/
+	private void reach(double[] distances, int[] parentEdges, int[] reached, NodeHeap heap,
+					   int node, double distance, int parentEdge) {
+		reached[node] = search;
+		distances[node] = distance;
+		parentEdges[node] = parentEdge;
+		heap.insertOrDecrease(node, distance);
+	}
+
+
+	/**
+	 * @effects returns true iff the forward search reached a higher-ranked
+	 *          node with an edge down to node that is shorter than distance,
+	 *          in which case node is not on a shortest upward path and its
+	 *          edges need not be relaxed ("stall-on-demand").
+	 **/
+	private boolean stalledForward(int node, double distance) {
+		for (int i = hierarchy.getDownStart(node); i < hierarchy.getDownEnd(node); i++) {
+			int higher = hierarchy.getDownSource(i);
+			if (forwardReached[higher] == search &&
+					forwardDistances[higher] + hierarchy.getDownWeight(i) < distance) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * @effects returns true iff the backward search reached a higher-ranked
+	 *          node with an edge up from node that is shorter than distance.
+	 **/
+	private boolean stalledBackward(int node, double distance) {
+		for (int i = hierarchy.getUpStart(node); i < hierarchy.getUpEnd(node); i++) {
+			int higher = hierarchy.getUpTarget(i);
+			if (backwardReached[higher] == search &&
+					backwardDistances[higher] + hierarchy.getUpWeight(i) < distance) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects if the other search has reached node, and the path through
+	 *          it is shorter than bestLength, makes it the best path.
+	 **/
+	private void meet(int node, double distance, double[] otherDistances, int[] otherReached) {
+		if (otherReached[node] == search) {
+			double length = distance + otherDistances[node];
+			if (length < bestLength) {
+				bestLength = length;
+				meetingNode = node;
+			}
+		}
+	}
+
+
+	/**
+	 * @effects returns the Route of the last search, through node.
+	 * @requires node is the meeting node of the last search, and is not
+	 *           both its source and its target.
+	 **/
+	private Route routeThrough(int node) {
+		// the forward edges are found from node back to the source.
+		int edgeCount = 0;
+		for (int n = node; forwardParentEdges[n] >= 0; n = hierarchy.getEdgeSource(forwardParentEdges[n])) {
+			edgeCount++;
+		}
+		int[] edges = new int[edgeCount];
+		for (int n = node; forwardParentEdges[n] >= 0; n = hierarchy.getEdgeSource(forwardParentEdges[n])) {
+			edges[--edgeCount] = forwardParentEdges[n];
+		}
+
+		Route route = null;
+		for (int edge: edges) {
+			route = hierarchy.appendEdge(route, edge);
+		}
+		for (int n = node; backwardParentEdges[n] >= 0; n = hierarchy.getEdgeTarget(backwardParentEdges[n])) {
+			route = hierarchy.appendEdge(route, backwardParentEdges[n]);
+		}
+		return route;
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		int nodeCount = hierarchy.getGraph().getNodeCount();
+		return forwardDistances.length == nodeCount && forwardParentEdges.length == nodeCount &&
+			   forwardReached.length == nodeCount && backwardDistances.length == nodeCount &&
+			   backwardParentEdges.length == nodeCount && backwardReached.length == nodeCount;
+	}
+}
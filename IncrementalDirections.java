@@ -0,0 +1,192 @@
+package homework1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * An IncrementalDirections keeps the directions of a growing Route in
+ * several modes of travel, and updates them in constant time when a segment
+ * is added to the route.
+ * <p>
+ * RouteFormatter gives one line of directions per segment, and the turn of
+ * each line is measured from the heading of the segment before it in the
+ * same feature, or, for the first segment of a feature, from the start
+ * heading of the feature before it. Adding a segment to a Route either
+ * extends its last feature or starts a new one, so it never changes the
+ * lines of the segments already there: it only adds one line per mode.
+ * An IncrementalDirections therefore renders every line once, when its
+ * segment is added, and keeps the rendered text of every mode with the
+ * offset of every line in it.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   route : Route                       // the route so far, or null
+ *   heading : real                      // the initial heading
+ *   modes : sequence of StepFormatter   // the modes directions are given in
+ * </pre>
+ **/
+public class IncrementalDirections {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final double heading;
+	private final StepFormatter[] modes;
+	private Route route;
+
+	// the directions of every mode, and the offset in them of the end of
+	// the line of every segment.
+	private final StringBuilder[] directions;
+	private final int[][] lineEnds;
+	private int segmentCount;
+
+	// the name and the heading of the last segment, and the start heading
+	// of the last feature.
+	private String lastName;
+	private double lastHeading;
+	private double featureStartHeading;
+
+	// Abstraction function: route = route, heading = heading, modes = modes.
+	//
+	// Representation invariant: modes does not contain null &&
+	// directions.length = lineEnds.length = modes.length &&
+	// segmentCount = route.segmentCount (0 if route = null) &&
+	// directions[k] = new CompositeRouteFormatter(modes).computeDirections(route, heading)[k]
+	// && its line of segment i ends at lineEnds[k][i].
+
+
+	/**
+	 * Constructs a new IncrementalDirections.
+	 * @requires 0 <= heading < 360 && modes != null && modes does not
+	 *           contain null
+	 * @effects Constructs a new IncrementalDirections with no route, that
+	 *          gives directions in modes from heading.
+	 **/
+	public IncrementalDirections(double heading, StepFormatter... modes) {
+		this.heading = heading;
+		this.modes = modes.clone();
+		directions = new StringBuilder[modes.length];
+		lineEnds = new int[modes.length][INITIAL_CAPACITY];
+		for (int k = 0; k < modes.length; k++) {
+			directions[k] = new StringBuilder();
+		}
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Adds a segment to the end of the route.
+	 * @requires gs != null && (route == null || gs.p1 == route.end)
+	 * @modifies this
+	 * @effects sets route to new Route(gs) if it is null, and to
+	 *          route.addSegment(gs) otherwise, and renders the line of gs in
+	 *          every mode. Takes constant time, but for the occasional
+	 *          growth of the line offsets.
+	 **/
+	public void addSegment(GeoSegment gs) {
+		double direction;
+		if (route == null) {
+			route = new Route(gs);
+			direction = heading;
+			featureStartHeading = gs.getHeading();
+		} else {
+			route = route.addSegment(gs);
+			if (gs.getName().equals(lastName)) {
+				direction = lastHeading;
+			} else {
+				// gs starts a new feature, as in Route.addSegment().
+				direction = featureStartHeading;
+				featureStartHeading = gs.getHeading();
+			}
+		}
+		lastName = gs.getName();
+		lastHeading = gs.getHeading();
+
+		double length = gs.getLength();
+		try {
+			for (int k = 0; k < modes.length; k++) {
+				if (segmentCount == lineEnds[k].length) {
+					lineEnds[k] = Arrays.copyOf(lineEnds[k], 2 * segmentCount);
+				}
+				modes[k].appendStep(directions[k], modes[k].computeTurn(direction, lastHeading),
+									lastName, length);
+				lineEnds[k][segmentCount] = directions[k].length();
+			}
+		} catch (IOException e) {
+			// a StringBuilder never throws IOException.
+			throw new UncheckedIOException(e);
+		}
+		segmentCount++;
+		assert(!ValidationLevel.onAccess() || this.checkRep());
+	}
+
+
+	/**
+	 * Returns the route whose directions this gives.
+	 * @return route
+	 **/
+	public Route getRoute() {
+		return route;
+	}
+
+
+	/**
+	 * Returns the number of segments of the route.
+	 * @return route.segmentCount, or 0 if route is null.
+	 **/
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+
+	/**
+	 * Returns the number of modes of this.
+	 * @return modes.length
+	 **/
+	public int getModeCount() {
+		return modes.length;
+	}
+
+
+	/**
+	 * Returns the line of directions of one segment in one mode.
+	 * @requires 0 <= mode < modes.length && 0 <= segmentIndex < getSegmentCount()
+	 * @return the newline-terminated line of directions[mode] for segment
+	 *         segmentIndex of the route.
+	 **/
+	public String getLine(int mode, int segmentIndex) {
+		int start = segmentIndex == 0 ? 0 : lineEnds[mode][segmentIndex - 1];
+		return directions[mode].substring(start, lineEnds[mode][segmentIndex]);
+	}
+
+
+	/**
+	 * Returns the directions of the route in one mode.
+	 * @requires 0 <= mode < modes.length
+	 * @return the newline-terminated directions of route in modes[mode],
+	 *         equal to new CompositeRouteFormatter(modes)
+	 *         .computeDirections(route, heading)[mode], or "" if route is
+	 *         null.
+	 **/
+	public String getDirections(int mode) {
+		return directions[mode].toString();
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		if (directions.length != modes.length || lineEnds.length != modes.length) {
+			return false;
+		}
+		for (int k = 0; k < modes.length; k++) {
+			if (modes[k] == null || (segmentCount > 0 &&
+					lineEnds[k][segmentCount - 1] != directions[k].length())) {
+				return false;
+			}
+		}
+		return (route == null) == (segmentCount == 0) &&
+			   (route == null || route.getSegmentCount() == segmentCount);
+	}
+}
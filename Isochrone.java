@@ -0,0 +1,146 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * An Isochrone computes the parts of a RoadGraph reachable from a point
+ * within a time budget, such as every street within a 10 minute walk of a
+ * store.
+ * <p>
+ * A query runs a Dijkstra search from the start, timing every edge with a
+ * TravelMode, which stops as soon as the next node is beyond the budget.
+ * Every edge leaving a node reached in time is reported: whole if its end is
+ * reached in time too, and otherwise clipped to the part that can be
+ * traveled in the time left. Edges are reported in the direction they are
+ * traveled, so in a bidirectional graph a street reachable from both of its
+ * ends is reported once from each end.
+ * <p>
+ * The search state lives in primitive arrays sized for the graph, stamped
+ * with a search number so that they need no clearing between queries. A
+ * query borrows a set from a small pool owned by the Isochrone and gives it
+ * back when done, so queries allocate nothing but their result, and no
+ * thread keeps graph-sized state of its own. An Isochrone may be used by
+ * any number of threads at once; it keeps at most one idle set per core.
+ */
+public class Isochrone {
+
+	private final RoadGraph graph;
+
+	// the search states no query is using.
+	private final ArrayBlockingQueue<Scratch> idle;
+
+	// Abstraction function: an Isochrone computes reachable segments of graph.
+	//
+	// Representation invariant: graph != null && idle != null.
+
+
+	/**
+	 * Constructs a new Isochrone.
+	 * @requires graph != null
+	 * @effects Constructs a new Isochrone that computes reachable segments
+	 *          of graph.
+	 **/
+	public Isochrone(RoadGraph graph) {
+		this.graph = graph;
+		this.idle = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Computes the segments reachable from a point within a time budget.
+	 * @requires start != null && minutes >= 0 && mode != null
+	 * @return a list of GeoSegments holding, for every edge of the graph
+	 *         leaving a node that can be reached from start within minutes
+	 *         traveling by mode, the edge's segment if its end can be
+	 *         reached within minutes along it, and otherwise the part of the
+	 *         segment from its p1 that can be traveled in the minutes left,
+	 *         unless that is no part at all. The list is empty if start is
+	 *         not a node of the graph.
+	 **/
+	public List<GeoSegment> computeReachable(GeoPoint start, double minutes, TravelMode mode) {
+		List<GeoSegment> reachable = new ArrayList<>();
+		int source = graph.getNodeId(start);
+		if (source < 0) {
+			return reachable;
+		}
+		Scratch scratch = idle.poll();
+		if (scratch == null) {
+			scratch = new Scratch(graph.getNodeCount());
+		}
+		double[] minutesTo = scratch.minutesTo;
+		int[] reached = scratch.reached;
+		NodeHeap heap = scratch.heap;
+		int search = ++scratch.search;
+
+		heap.clear();
+		reached[source] = search;
+		minutesTo[source] = 0;
+		heap.insertOrDecrease(source, 0);
+		while (!heap.isEmpty() && heap.peekKey() <= minutes) {
+			int node = heap.poll();
+			double arrival = minutesTo[node];
+			for (int e = graph.getEdgesStart(node); e < graph.getEdgesEnd(node); e++) {
+				GeoSegment segment = graph.getEdgeSegment(e);
+				double edgeMinutes = graph.getEdgeWeight(e) * mode.getMinutesPerKilometer(segment);
+				double nextArrival = arrival + edgeMinutes;
+				if (nextArrival <= minutes) {
+					reachable.add(segment);
+					int next = graph.getEdgeTarget(e);
+					if (reached[next] != search || nextArrival < minutesTo[next]) {
+						reached[next] = search;
+						minutesTo[next] = nextArrival;
+						heap.insertOrDecrease(next, nextArrival);
+					}
+				} else if (arrival < minutes) {
+					GeoPoint end = GeoPoint.between(segment.getP1(), segment.getP2(),
+													(minutes - arrival) / edgeMinutes);
+					if (!end.equals(segment.getP1())) {
+						reachable.add(new GeoSegment(segment.getName(), segment.getP1(), end));
+					}
+				}
+			}
+		}
+		// dropped if the pool is full.
+		idle.offer(scratch);
+		return reachable;
+	}
+
+
+	/**
+	 * Returns the graph this computes reachable segments of.
+	 * @return the graph this computes reachable segments of.
+	 **/
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+
+	/**
+	 * A Scratch is the search state of one query at a time: the arrival
+	 * time at every node, valid only if reached[node] == search, and the
+	 * queue.
+	 **/
+	private static final class Scratch {
+		final double[] minutesTo;
+		final int[] reached;
+		final NodeHeap heap;
+		int search;
+
+		Scratch(int nodeCount) {
+			minutesTo = new double[nodeCount];
+			reached = new int[nodeCount];
+			heap = new NodeHeap(nodeCount);
+		}
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		return graph != null && idle != null;
+	}
+}
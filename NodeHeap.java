@@ -0,0 +1,185 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A NodeHeap is a binary min-heap of node ids keyed by doubles, supporting
+ * decrease-key. It is kept in primitive arrays sized for a fixed number of
+ * nodes, so it allocates nothing after construction and can be reused for
+ * any number of searches.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   entries : set of (node, key)   // the nodes in the heap and their keys
+ * </pre>
+ **/
+final class NodeHeap {
+
+	// heap[0..size-1] is a binary heap of node ids ordered by keys[node].
+	private final int[] heap;
+	private final double[] keys;
+
+	// positions[node] is the index of node in heap, or -1 if it is not in it.
+	private final int[] positions;
+	private int size;
+
+	// Abstraction function: entries = { (heap[i], keys[heap[i]]) | 0 <= i < size }.
+	//
+	// Representation invariant: for 0 < i < size, keys[heap[(i - 1) / 2]] <= keys[heap[i]] &&
+	// positions[heap[i]] = i for 0 <= i < size && positions[n] = -1 for every other n.
+
+
+	/**
+	 * Constructs a new NodeHeap.
+	 * @requires nodeCount >= 0
+	 * @effects Constructs a new, empty NodeHeap for node ids 0 to nodeCount - 1.
+	 **/
+	NodeHeap(int nodeCount) {
+		heap = new int[nodeCount];
+		keys = new double[nodeCount];
+		positions = new int[nodeCount];
+		Arrays.fill(positions, -1);
+	}
+
+
+	/**
+	 * Returns whether this is empty.
+	 * @return entries is empty.
+	 **/
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+
+	/**
+	 * Returns the number of entries in this.
+	 * @return the number of entries in this.
+	 **/
+	int size() {
+		return size;
+	}
+
+
+	/**
+	 * Returns whether a node is in this.
+	 * @return true iff node is in entries.
+	 **/
+	boolean contains(int node) {
+		return positions[node] >= 0;
+	}
+
+
+	/**
+	 * Inserts a node, or lowers its key.
+	 * @modifies this
+	 * @effects inserts (node, key) if node is not in entries, and otherwise
+	 *          sets its key to key if that is lower than its current key.
+	 **/
+	void insertOrDecrease(int node, double key) {
+		int position = positions[node];
+		if (position < 0) {
+			position = size++;
+			heap[position] = node;
+			positions[node] = position;
+		} else if (key >= keys[node]) {
+			return;
+		}
+		keys[node] = key;
+		siftUp(position);
+	}
+
+
+	/**
+	 * Returns the key of the minimum entry.
+	 * @requires !isEmpty()
+	 * @return the smallest key in entries.
+	 **/
+	double peekKey() {
+		return keys[heap[0]];
+	}
+
+
+	/**
+	 * Removes the minimum entry.
+	 * @requires !isEmpty()
+	 * @modifies this
+	 * @effects removes the entry with the smallest key from entries.
+	 * @return the node of the removed entry.
+	 **/
+	int poll() {
+		int node = heap[0];
+		positions[node] = -1;
+		size--;
+		if (size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			positions[last] = 0;
+			siftDown(0);
+		}
+		return node;
+	}
+
+
+	/**
+	 * Removes all entries.
+	 * @modifies this
+	 * @effects entries is empty. Takes time linear in the number of entries,
+	 *          not in the number of nodes.
+	 **/
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects moves heap[position] up until its parent's key is not greater.
+	 **/
+	private void siftUp(int position) {
+		int node = heap[position];
+		double key = keys[node];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			int parentNode = heap[parent];
+			if (keys[parentNode] <= key) {
+				break;
+			}
+			heap[position] = parentNode;
+			positions[parentNode] = position;
+			position = parent;
+		}
+		heap[position] = node;
+		positions[node] = position;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects moves heap[position] down until no child's key is smaller.
+	 **/
+	private void siftDown(int position) {
+		int node = heap[position];
+		double key = keys[node];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+				child++;
+			}
+			int childNode = heap[child];
+			if (keys[childNode] >= key) {
+				break;
+			}
+			heap[position] = childNode;
+			positions[childNode] = position;
+			position = child;
+		}
+		heap[position] = node;
+		positions[node] = position;
+	}
+}
@@ -0,0 +1,157 @@
+package homework1;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A PersistentDoubleSequence is an immutable sequence of doubles that
+ * supports cheap appends. PersistentDoubleSequences are immutable.
+ * <p>
+ * This is the primitive counterpart of PersistentSequence: appending a
+ * value creates a new PersistentDoubleSequence that shares its values array
+ * with the original one, so building a sequence one value at a time takes
+ * amortized constant time per append, and every earlier version stays
+ * valid.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   values : sequence   // the values of the sequence, in order
+ * </pre>
+ * @see homework1.PersistentSequence
+ **/
+final class PersistentDoubleSequence {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	// the array holding the values of this, and possibly values of later
+	// versions after index size - 1.
+	private final double[] values;
+
+	// the number of values of this.
+	private final int size;
+
+	// the number of array slots claimed by all the versions sharing the
+	// array chain this belongs to. Only the version whose size equals it
+	// may append in place.
+	private final AtomicInteger claimed;
+
+	// Abstraction function: this.values = values[0..size-1].
+	//
+	// Representation invariant: values != null && claimed != null &&
+	// 0 <= size <= values.length && size <= claimed.get().
+
+
+	/**
+	 * Constructs a new PersistentDoubleSequence.
+	 * @effects Constructs a new PersistentDoubleSequence holding the single
+	 *          value first.
+	 **/
+	PersistentDoubleSequence(double first) {
+		this(new double[INITIAL_CAPACITY], 1, new AtomicInteger(1));
+		values[0] = first;
+	}
+
+
+	private PersistentDoubleSequence(double[] values, int size, AtomicInteger claimed) {
+		this.values = values;
+		this.size = size;
+		this.claimed = claimed;
+		assert(this.checkRep());
+	}
+
+
+	/**
+	 * Creates a new PersistentDoubleSequence that is equal to this one with
+	 * value appended to its end.
+	 * @return a new PersistentDoubleSequence r such that
+	 *         r.values = this.values + [value]
+	 **/
+	PersistentDoubleSequence append(double value) {
+		if (claimed.compareAndSet(size, size + 1)) {
+			// no version has appended to this one yet.
+			double[] array = values;
+			if (size == array.length) {
+				array = grow(values, size);
+			}
+			array[size] = value;
+			return new PersistentDoubleSequence(array, size + 1, claimed);
+		}
+		double[] array = grow(values, size);
+		array[size] = value;
+		return new PersistentDoubleSequence(array, size + 1, new AtomicInteger(size + 1));
+	}
+
+
+	/**
+	 * Returns the value at index.
+	 * @requires 0 <= index < this.size()
+	 * @return this.values[index]
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 **/
+	double get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values[index];
+	}
+
+
+	/**
+	 * Returns the last value of this.
+	 * @return this.values[this.size() - 1]
+	 **/
+	double getLast() {
+		return values[size - 1];
+	}
+
+
+	/**
+	 * Returns the index of the last value that is at most value, assuming
+	 * the values are sorted, by binary search.
+	 * @requires this.values[from..to] is sorted in ascending order &&
+	 *           0 <= from <= to < this.size()
+	 * @return the largest i such that from <= i <= to and
+	 *         this.values[i] <= value, or from if there is no such i.
+	 **/
+	int lastIndexAtMost(double value, int from, int to) {
+		int low = from;
+		int high = to;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (values[middle] <= value) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * Returns the number of values in this.
+	 * @return the number of values in this.
+	 **/
+	int size() {
+		return size;
+	}
+
+
+	/**
+	 * @effects returns a copy of the first size values of array, with room
+	 *          for at least one more value.
+	 **/
+	private static double[] grow(double[] array, int size) {
+		double[] grown = new double[Math.max(INITIAL_CAPACITY, size * 2)];
+		System.arraycopy(array, 0, grown, 0, size);
+		return grown;
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		return values != null && claimed != null &&
+			   0 <= size && size <= values.length && size <= claimed.get();
+	}
+}
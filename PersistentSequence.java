@@ -0,0 +1,163 @@
+package homework1;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A PersistentSequence is an immutable sequence of elements that supports
+ * cheap appends. PersistentSequences are immutable.
+ * <p>
+ * Appending an element to a PersistentSequence creates a new
+ * PersistentSequence that shares its elements array with the original one,
+ * so building a sequence one element at a time takes amortized constant
+ * time per append, and every earlier version stays valid. Only the first
+ * append to a given version writes into the shared array; appending to a
+ * version that was already appended to copies its elements instead.
+ * <p>
+ * The mutating methods of List throw UnsupportedOperationException.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   elements : sequence   // the elements of the sequence, in order
+ * </pre>
+ **/
+final class PersistentSequence<E> extends AbstractList<E> implements RandomAccess {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	// the array holding the elements of this, and possibly elements of
+	// later versions after index size - 1.
+	private final Object[] elements;
+
+	// the number of elements of this.
+	private final int size;
+
+	// the number of array slots claimed by all the versions sharing the
+	// array chain this belongs to. Only the version whose size equals it
+	// may append in place.
+	private final AtomicInteger claimed;
+
+	// Abstraction function: this.elements = elements[0..size-1].
+	//
+	// Representation invariant: elements != null && claimed != null &&
+	// 0 <= size <= elements.length && size <= claimed.get().
+
+
+	/**
+	 * Constructs a new PersistentSequence.
+	 * @effects Constructs a new empty PersistentSequence.
+	 **/
+	PersistentSequence() {
+		this(new Object[INITIAL_CAPACITY], 0, new AtomicInteger());
+	}
+
+
+	/**
+	 * Constructs a new PersistentSequence.
+	 * @requires collection != null
+	 * @effects Constructs a new PersistentSequence holding the elements of
+	 *          collection in iteration order.
+	 **/
+	PersistentSequence(Collection<? extends E> collection) {
+		this(collection.toArray(), collection.size(), new AtomicInteger(collection.size()));
+	}
+
+
+	private PersistentSequence(Object[] elements, int size, AtomicInteger claimed) {
+		this.elements = elements;
+		this.size = size;
+		this.claimed = claimed;
+		assert(this.checkRep());
+	}
+
+
+	/**
+	 * Creates a new PersistentSequence that is equal to this one with e
+	 * appended to its end.
+	 * @return a new PersistentSequence r such that
+	 *         r.elements = this.elements + [e]
+	 **/
+	PersistentSequence<E> append(E e) {
+		if (claimed.compareAndSet(size, size + 1)) {
+			// no version has appended to this one yet.
+			Object[] array = elements;
+			if (size == array.length) {
+				array = grow(elements, size);
+			}
+			array[size] = e;
+			return new PersistentSequence<E>(array, size + 1, claimed);
+		}
+		Object[] array = grow(elements, size);
+		array[size] = e;
+		return new PersistentSequence<E>(array, size + 1, new AtomicInteger(size + 1));
+	}
+
+
+	/**
+	 * Returns the element at index.
+	 * @requires 0 <= index < this.size()
+	 * @return this.elements[index]
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 **/
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return (E)elements[index];
+	}
+
+
+	/**
+	 * Returns the last element of this.
+	 * @requires this.size() > 0
+	 * @return this.elements[this.size() - 1]
+	 **/
+	E getLast() {
+		return get(size - 1);
+	}
+
+
+	/**
+	 * Returns a Spliterator over the elements of this. The Spliterator is
+	 * sized, and splits the elements into halves without copying them.
+	 * @return a Spliterator over this.elements, in order.
+	 **/
+	public Spliterator<E> spliterator() {
+		return Spliterators.spliterator(elements, 0, size,
+										Spliterator.ORDERED | Spliterator.IMMUTABLE);
+	}
+
+
+	/**
+	 * Returns the number of elements in this.
+	 * @return the number of elements in this.
+	 **/
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * @effects returns a copy of the first size elements of array, with
+	 *          room for at least one more element.
+	 **/
+	private static Object[] grow(Object[] array, int size) {
+		Object[] grown = new Object[Math.max(INITIAL_CAPACITY, size * 2)];
+		System.arraycopy(array, 0, grown, 0, size);
+		return grown;
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		return elements != null && claimed != null &&
+			   0 <= size && size <= elements.length && size <= claimed.get();
+	}
+}
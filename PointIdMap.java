@@ -0,0 +1,174 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A PointIdMap maps the locations of points to int ids, such as node ids
+ * or point ids in a SegmentStore.
+ * <p>
+ * Locations are packed into one long each, and the map is an open-addressing
+ * hash table with linear probing over a long array of keys and an int array
+ * of ids. Looking up or adding a location therefore creates no objects, and
+ * takes constant time on average whatever the distribution of the points,
+ * since keys are scrambled with GeoPoint.mix() before they are placed.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   ids : (latitude, longitude) -> int   // the id of every location in the map
+ * </pre>
+ **/
+final class PointIdMap {
+
+	// the key of empty slots; no valid GeoPoint packs to it.
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private static final int MIN_CAPACITY = 16;
+
+	// keys[i] is the packed location in slot i, or EMPTY, and ids[i] its id.
+	// keys.length is a power of two and at least twice size.
+	private long[] keys;
+	private int[] ids;
+	private int size;
+
+	// log2 of keys.length.
+	private int bits;
+
+	// Abstraction function: ids maps the location packed in keys[i] to
+	// ids[i] for every i with keys[i] != EMPTY.
+	//
+	// Representation invariant: keys.length = ids.length = 2^bits >= 2 * size &&
+	// size is the number of non-EMPTY keys && every key is in the first
+	// slot at or after its hash slot, with no EMPTY slot in between.
+
+
+	/**
+	 * Constructs a new PointIdMap.
+	 * @requires expectedSize >= 0
+	 * @effects Constructs a new, empty PointIdMap with room for expectedSize
+	 *          locations before it grows.
+	 **/
+	PointIdMap(int expectedSize) {
+		bits = 32 - Integer.numberOfLeadingZeros(Math.max(MIN_CAPACITY, 2 * expectedSize) - 1);
+		keys = new long[1 << bits];
+		ids = new int[1 << bits];
+		Arrays.fill(keys, EMPTY);
+	}
+
+
+	/**
+	 * Returns the number of locations in this.
+	 * @return the number of locations in ids.
+	 **/
+	int size() {
+		return size;
+	}
+
+
+	/**
+	 * Returns the id of a location.
+	 * @requires latitude and longitude are those of a valid GeoPoint
+	 * @return ids(latitude, longitude), or -1 if the location is not in this.
+	 **/
+	int get(int latitude, int longitude) {
+		long key = GeoPoint.key(latitude, longitude);
+		int mask = keys.length - 1;
+		for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+			long slotKey = keys[slot];
+			if (slotKey == key) {
+				return ids[slot];
+			}
+			if (slotKey == EMPTY) {
+				return -1;
+			}
+		}
+	}
+
+
+	/**
+	 * Adds a location, unless it is in this already.
+	 * @requires latitude and longitude are those of a valid GeoPoint
+	 * @modifies this
+	 * @effects sets ids(latitude, longitude) = id if the location is not in
+	 *          this.
+	 * @return the id the location had before, or -1 if it was not in this.
+	 **/
+	int putIfAbsent(int latitude, int longitude, int id) {
+		return put(latitude, longitude, id, false);
+	}
+
+
+	/**
+	 * Sets the id of a location.
+	 * @requires latitude and longitude are those of a valid GeoPoint
+	 * @modifies this
+	 * @effects sets ids(latitude, longitude) = id.
+	 * @return the id the location had before, or -1 if it was not in this.
+	 **/
+	int put(int latitude, int longitude, int id) {
+		return put(latitude, longitude, id, true);
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects adds the location with id, or sets its id to id if replace.
+	 * @return the id the location had before, or -1.
+	 **/
+	private int put(int latitude, int longitude, int id, boolean replace) {
+		long key = GeoPoint.key(latitude, longitude);
+		int mask = keys.length - 1;
+		for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+			long slotKey = keys[slot];
+			if (slotKey == key) {
+				int previous = ids[slot];
+				if (replace) {
+					ids[slot] = id;
+				}
+				return previous;
+			}
+			if (slotKey == EMPTY) {
+				keys[slot] = key;
+				ids[slot] = id;
+				if (++size > keys.length / 2) {
+					grow();
+				}
+				return -1;
+			}
+		}
+	}
+
+
+	/**
+	 * @effects returns the slot key hashes to.
+	 **/
+	private int slot(long key) {
+		return (int)(GeoPoint.mix(key) >>> (Long.SIZE - bits));
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects doubles the capacity of this, placing every key again.
+	 **/
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldIds = ids;
+		bits++;
+		keys = new long[1 << bits];
+		ids = new int[1 << bits];
+		Arrays.fill(keys, EMPTY);
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if (key == EMPTY) {
+				continue;
+			}
+			int slot = slot(key);
+			while (keys[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			ids[slot] = oldIds[i];
+		}
+	}
+}
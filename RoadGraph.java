@@ -0,0 +1,370 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A RoadGraph is a directed graph whose nodes are the distinct endpoints of
+ * a collection of GeoSegments, and whose edges are the segments. RoadGraphs
+ * are immutable.
+ * <p>
+ * The graph is stored in compressed sparse row form: the edges leaving each
+ * node are consecutive, and every node and edge attribute is a primitive
+ * array indexed by node id or edge id. Traversing the graph therefore
+ * neither boxes nor hashes. The edges leaving node n are the edge ids e
+ * with getEdgesStart(n) <= e < getEdgesEnd(n).
+ * <p>
+ * Node ids are assigned to points in the order they first appear in the
+ * segment collection, or in the order of their Hilbert keys (see
+ * SpaceFillingCurve), which keeps nodes that are close on the ground close
+ * in memory and makes searches faster on large graphs. Since the edges
+ * leaving a node are stored together, edges follow the order of their
+ * sources. Each edge remembers the segment it was made from, so paths in
+ * the graph can be turned back into Routes.
+ * <p>
+ * The TurnClass of every turn from an edge onto an edge leaving its target
+ * is computed once, when the graph is built, and kept in a byte table, so
+ * searches that weigh turns never compute headings.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   nodes : sequence   // the distinct endpoints of the segments, indexed by node id
+ *   edges : sequence   // (source, target, weight, segment), indexed by edge id
+ * </pre>
+ **/
+public class RoadGraph {
+
+	// node columns, indexed by node id.
+	private final int[] latitudes;
+	private final int[] longitudes;
+
+	// edgesStart[n] is the id of the first edge leaving node n, and
+	// edgesStart[nodeCount] is the number of edges.
+	private final int[] edgesStart;
+
+	// edge columns, indexed by edge id.
+	private final int[] edgeSources;
+	private final int[] edgeTargets;
+	private final double[] edgeWeights;
+	private final GeoSegment[] edgeSegments;
+
+	// the turns between edges, as TurnClass ordinals: the turn from edge e
+	// onto edge f leaving its target n is turnClasses[turnStart[e] + f - edgesStart[n]].
+	private final int[] turnStart;
+	private final byte[] turnClasses;
+
+	// the id of every node.
+	private final PointIdMap nodeIds;
+
+	// Abstraction function: nodes[n] = (latitudes[n], longitudes[n]), and the
+	// edges leaving nodes[n] are (n, edgeTargets[e], edgeWeights[e], edgeSegments[e])
+	// for edgesStart[n] <= e < edgesStart[n + 1], where n = edgeSources[e].
+	//
+	// Representation invariant: latitudes.length = longitudes.length = nodeCount &&
+	// edgesStart.length = nodeCount + 1 && edgesStart is non-decreasing &&
+	// edgesStart[0] = 0 && edgesStart[nodeCount] = edgeTargets.length =
+	// edgeWeights.length = edgeSegments.length && 0 <= edgeTargets[e] < nodeCount &&
+	// edgeSegments[e].p1 = nodes[source of e] && edgeSegments[e].p2 = nodes[edgeTargets[e]] &&
+	// edgeWeights[e] = edgeSegments[e].length && nodeIds maps nodes[n] to n &&
+	// turnClasses holds the TurnClass of every turn, as laid out above.
+
+
+	/**
+	 * Constructs a new RoadGraph.
+	 * @requires segments != null && segments does not contain null
+	 * @effects Constructs a new RoadGraph whose nodes are the distinct
+	 *          endpoints of segments and whose edges are the segments, each
+	 *          leading from its p1 to its p2. If bidirectional, every segment
+	 *          also gives an edge made from its reverse().
+	 **/
+	public RoadGraph(Collection<GeoSegment> segments, boolean bidirectional) {
+		this(segments, bidirectional, false);
+	}
+
+
+	/**
+	 * Constructs a new RoadGraph.
+	 * @requires segments != null && segments does not contain null
+	 * @effects Constructs a new RoadGraph like RoadGraph(segments,
+	 *          bidirectional), but whose node ids follow the Hilbert order
+	 *          of the nodes if hilbertOrder.
+	 **/
+	public RoadGraph(Collection<GeoSegment> segments, boolean bidirectional, boolean hilbertOrder) {
+		int edgeCount = bidirectional ? 2 * segments.size() : segments.size();
+		nodeIds = new PointIdMap(segments.size());
+
+		// assign node ids and count the edges leaving every node.
+		int[] sources = new int[edgeCount];
+		int[] targets = new int[edgeCount];
+		GeoSegment[] edges = new GeoSegment[edgeCount];
+		int[] nodeLatitudes = new int[16];
+		int[] nodeLongitudes = new int[16];
+		int edge = 0;
+		for (GeoSegment segment: segments) {
+			// each segment adds at most two nodes.
+			if (nodeIds.size() + 2 > nodeLatitudes.length) {
+				nodeLatitudes = Arrays.copyOf(nodeLatitudes, nodeLatitudes.length * 2);
+				nodeLongitudes = Arrays.copyOf(nodeLongitudes, nodeLongitudes.length * 2);
+			}
+			int p1 = nodeIdOf(segment.getP1(), nodeLatitudes, nodeLongitudes);
+			int p2 = nodeIdOf(segment.getP2(), nodeLatitudes, nodeLongitudes);
+			sources[edge] = p1;
+			targets[edge] = p2;
+			edges[edge++] = segment;
+			if (bidirectional) {
+				sources[edge] = p2;
+				targets[edge] = p1;
+				edges[edge++] = segment.reverse();
+			}
+		}
+		int nodeCount = nodeIds.size();
+		if (hilbertOrder) {
+			renumberNodes(nodeLatitudes, nodeLongitudes, sources, targets);
+		}
+		latitudes = Arrays.copyOf(nodeLatitudes, nodeCount);
+		longitudes = Arrays.copyOf(nodeLongitudes, nodeCount);
+
+		// counting sort of the edges by source.
+		edgesStart = new int[nodeCount + 1];
+		for (int e = 0; e < edgeCount; e++) {
+			edgesStart[sources[e] + 1]++;
+		}
+		for (int n = 0; n < nodeCount; n++) {
+			edgesStart[n + 1] += edgesStart[n];
+		}
+		int[] next = Arrays.copyOf(edgesStart, nodeCount);
+		edgeSources = new int[edgeCount];
+		edgeTargets = new int[edgeCount];
+		edgeWeights = new double[edgeCount];
+		edgeSegments = new GeoSegment[edgeCount];
+		for (int e = 0; e < edgeCount; e++) {
+			int position = next[sources[e]]++;
+			edgeSources[position] = sources[e];
+			edgeTargets[position] = targets[e];
+			edgeWeights[position] = edges[e].getLength();
+			edgeSegments[position] = edges[e];
+		}
+
+		turnStart = new int[edgeCount];
+		int turnCount = 0;
+		for (int e = 0; e < edgeCount; e++) {
+			turnStart[e] = turnCount;
+			int node = edgeTargets[e];
+			turnCount = Math.addExact(turnCount, edgesStart[node + 1] - edgesStart[node]);
+		}
+		turnClasses = new byte[turnCount];
+		for (int e = 0; e < edgeCount; e++) {
+			double heading = edgeSegments[e].getHeading();
+			int node = edgeTargets[e];
+			for (int f = edgesStart[node]; f < edgesStart[node + 1]; f++) {
+				turnClasses[turnStart[e] + f - edgesStart[node]] =
+					(byte)TurnClass.of(heading, edgeSegments[f].getHeading()).ordinal();
+			}
+		}
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Returns the number of nodes in this.
+	 * @return the number of nodes in this.
+	 **/
+	public int getNodeCount() {
+		return latitudes.length;
+	}
+
+
+	/**
+	 * Returns the number of edges in this.
+	 * @return the number of edges in this.
+	 **/
+	public int getEdgeCount() {
+		return edgeTargets.length;
+	}
+
+
+	/**
+	 * Returns the node id of a point.
+	 * @requires point != null
+	 * @return n such that nodes[n] = point, or -1 if point is not a node.
+	 **/
+	public int getNodeId(GeoPoint point) {
+		return nodeIds.get(point.getLatitude(), point.getLongitude());
+	}
+
+
+	/**
+	 * Returns a node.
+	 * @requires 0 <= nodeId < getNodeCount()
+	 * @return a GeoPoint equal to nodes[nodeId].
+	 **/
+	public GeoPoint getNode(int nodeId) {
+		return GeoPoint.of(latitudes[nodeId], longitudes[nodeId]);
+	}
+
+
+	/**
+	 * Returns the latitude of a node.
+	 * @requires 0 <= nodeId < getNodeCount()
+	 * @return the latitude of nodes[nodeId] in millionths of degrees.
+	 **/
+	public int getLatitude(int nodeId) {
+		return latitudes[nodeId];
+	}
+
+
+	/**
+	 * Returns the longitude of a node.
+	 * @requires 0 <= nodeId < getNodeCount()
+	 * @return the longitude of nodes[nodeId] in millionths of degrees.
+	 **/
+	public int getLongitude(int nodeId) {
+		return longitudes[nodeId];
+	}
+
+
+	/**
+	 * Returns the id of the first edge leaving a node.
+	 * @requires 0 <= nodeId < getNodeCount()
+	 * @return the smallest id of an edge leaving nodes[nodeId], or
+	 *         getEdgesEnd(nodeId) if no edge leaves it.
+	 **/
+	public int getEdgesStart(int nodeId) {
+		return edgesStart[nodeId];
+	}
+
+
+	/**
+	 * Returns one past the id of the last edge leaving a node.
+	 * @requires 0 <= nodeId < getNodeCount()
+	 * @return one more than the largest id of an edge leaving nodes[nodeId].
+	 **/
+	public int getEdgesEnd(int nodeId) {
+		return edgesStart[nodeId + 1];
+	}
+
+
+	/**
+	 * Returns the node an edge leaves.
+	 * @requires 0 <= edgeId < getEdgeCount()
+	 * @return the node id of the source of edges[edgeId].
+	 **/
+	public int getEdgeSource(int edgeId) {
+		return edgeSources[edgeId];
+	}
+
+
+	/**
+	 * Returns the node an edge leads to.
+	 * @requires 0 <= edgeId < getEdgeCount()
+	 * @return the node id of the target of edges[edgeId].
+	 **/
+	public int getEdgeTarget(int edgeId) {
+		return edgeTargets[edgeId];
+	}
+
+
+	/**
+	 * Returns the weight of an edge.
+	 * @requires 0 <= edgeId < getEdgeCount()
+	 * @return the length, in kilometers, of the segment of edges[edgeId].
+	 **/
+	public double getEdgeWeight(int edgeId) {
+		return edgeWeights[edgeId];
+	}
+
+
+	/**
+	 * Returns the segment an edge was made from.
+	 * @requires 0 <= edgeId < getEdgeCount()
+	 * @return the GeoSegment leading from the source to the target of
+	 *         edges[edgeId].
+	 **/
+	public GeoSegment getEdgeSegment(int edgeId) {
+		return edgeSegments[edgeId];
+	}
+
+
+	/**
+	 * Returns the kind of turn from one edge onto the next.
+	 * @requires 0 <= inEdgeId, outEdgeId < getEdgeCount() &&
+	 *           getEdgeTarget(inEdgeId) = getEdgeSource(outEdgeId)
+	 * @return TurnClass.of(the heading of the segment of edges[inEdgeId],
+	 *         the heading of the segment of edges[outEdgeId]).
+	 **/
+	public TurnClass getTurnClass(int inEdgeId, int outEdgeId) {
+		int node = edgeTargets[inEdgeId];
+		return TurnClass.ofOrdinal(turnClasses[turnStart[inEdgeId] + outEdgeId - edgesStart[node]]);
+	}
+
+
+	/**
+	 * @modifies nodeIds, latitudes, longitudes
+	 * @effects returns the node id of point, assigning it the next node id
+	 *          and storing its coordinates if it has none.
+	 * @requires latitudes and longitudes have room for one more node.
+	 **/
+	private int nodeIdOf(GeoPoint point, int[] latitudes, int[] longitudes) {
+		int latitude = point.getLatitude();
+		int longitude = point.getLongitude();
+		int newNodeId = nodeIds.size();
+		int nodeId = nodeIds.putIfAbsent(latitude, longitude, newNodeId);
+		if (nodeId >= 0) {
+			return nodeId;
+		}
+		latitudes[newNodeId] = latitude;
+		longitudes[newNodeId] = longitude;
+		return newNodeId;
+	}
+
+
+	/**
+	 * @modifies nodeIds, latitudes, longitudes, sources, targets
+	 * @effects renumbers the nodes in nodeIds in Hilbert order, and the
+	 *          node coordinates and edge ends accordingly.
+	 **/
+	private void renumberNodes(int[] latitudes, int[] longitudes, int[] sources, int[] targets) {
+		int nodeCount = nodeIds.size();
+		int[] order = SpaceFillingCurve.hilbertOrder(nodeCount, n -> latitudes[n], n -> longitudes[n]);
+		int[] newIds = new int[nodeCount];
+		int[] oldLatitudes = Arrays.copyOf(latitudes, nodeCount);
+		int[] oldLongitudes = Arrays.copyOf(longitudes, nodeCount);
+		for (int n = 0; n < nodeCount; n++) {
+			newIds[order[n]] = n;
+			latitudes[n] = oldLatitudes[order[n]];
+			longitudes[n] = oldLongitudes[order[n]];
+		}
+		for (int e = 0; e < sources.length; e++) {
+			sources[e] = newIds[sources[e]];
+			targets[e] = newIds[targets[e]];
+		}
+		for (int n = 0; n < nodeCount; n++) {
+			nodeIds.put(latitudes[n], longitudes[n], n);
+		}
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		int nodeCount = latitudes.length;
+		if (longitudes.length != nodeCount || edgesStart.length != nodeCount + 1 ||
+				edgesStart[0] != 0 || edgesStart[nodeCount] != edgeTargets.length ||
+				edgeWeights.length != edgeTargets.length || edgeSegments.length != edgeTargets.length ||
+				nodeIds.size() != nodeCount) {
+			return false;
+		}
+		for (int n = 0; n < nodeCount; n++) {
+			for (int e = edgesStart[n]; e < edgesStart[n + 1]; e++) {
+				int target = edgeTargets[e];
+				if (edgeSources[e] != n || target < 0 || target >= nodeCount ||
+						getNodeId(edgeSegments[e].getP1()) != n ||
+						getNodeId(edgeSegments[e].getP2()) != target) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,507 @@
+package homework1;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class RoadGraphTest {
+
+	private GeoPoint[] points;
+	private GeoSegment[] segments;
+	private RoadGraph oneWay;
+	private RoadGraph twoWay;
+
+
+  	public RoadGraphTest() {
+  		points = ExampleGeoSegments.points;
+  		segments = ExampleGeoSegments.segments;
+  		oneWay = new RoadGraph(Arrays.asList(segments), false);
+  		twoWay = new RoadGraph(Arrays.asList(segments), true);
+  	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+  	public void test() {
+  		show("RoadGraph");
+  		show("Shared endpoints are one node",
+  			oneWay.getNodeCount() == points.length && twoWay.getNodeCount() == points.length);
+  		show("Every segment is an edge",
+  			oneWay.getEdgeCount() == segments.length);
+  		show("Bidirectional graphs also have the reversed segments",
+  			twoWay.getEdgeCount() == 2 * segments.length);
+
+  		boolean edgesMatch = true;
+  		for (int n = 0; n < twoWay.getNodeCount(); n++) {
+  			for (int e = twoWay.getEdgesStart(n); e < twoWay.getEdgesEnd(n); e++) {
+  				GeoSegment segment = twoWay.getEdgeSegment(e);
+  				edgesMatch &= twoWay.getEdgeSource(e) == n &&
+  							  twoWay.getNode(n).equals(segment.getP1()) &&
+  							  twoWay.getNode(twoWay.getEdgeTarget(e)).equals(segment.getP2()) &&
+  							  twoWay.getEdgeWeight(e) == segment.getLength();
+  			}
+  		}
+  		show("Edges leave their source and lead to their target", edgesMatch);
+
+  		int ziv = oneWay.getNodeId(points[1]);
+  		show("Node ids of points", ziv >= 0 && oneWay.getNode(ziv).equals(points[1]));
+  		show("Points that are not nodes have no id",
+  			oneWay.getNodeId(new GeoPoint(0, 0)) == -1);
+  		show("Ziv Square has one edge leaving it in a one-way graph",
+  			oneWay.getEdgesEnd(ziv) - oneWay.getEdgesStart(ziv) == 1);
+  	}
+
+
+  	public void testHilbertOrder() {
+  		show("RoadGraph in Hilbert order");
+  		RoadGraph city = new RoadGraph(grid(12, 6), false);
+  		RoadGraph ordered = new RoadGraph(grid(12, 6), false, true);
+  		boolean sameGraph = city.getNodeCount() == ordered.getNodeCount() &&
+  							city.getEdgeCount() == ordered.getEdgeCount();
+  		boolean inOrder = true;
+  		for (int n = 1; n < ordered.getNodeCount(); n++) {
+  			inOrder &= SpaceFillingCurve.hilbertKey(ordered.getNode(n - 1)) <
+  					   SpaceFillingCurve.hilbertKey(ordered.getNode(n));
+  		}
+  		RouteFinder finder = new RouteFinder(city);
+  		RouteFinder orderedFinder = new RouteFinder(ordered);
+  		for (int source = 0; source < city.getNodeCount(); source += 11) {
+  			for (int target = 0; target < city.getNodeCount(); target += 3) {
+  				GeoPoint from = city.getNode(source);
+  				GeoPoint to = city.getNode(target);
+  				double length = finder.findRoute(from, to).getLength();
+  				double orderedLength = orderedFinder.findRoute(from, to).getLength();
+  				sameGraph &= length == orderedLength || Math.abs(length - orderedLength) < 1e-9;
+  			}
+  		}
+  		show("Node ids follow the Hilbert curve", inOrder);
+  		show("Reordered graphs have the same routes", sameGraph);
+  	}
+
+
+  	public void testRouteFinder() {
+  		show("RouteFinder");
+  		RouteFinder aStar = new RouteFinder(twoWay);
+  		RouteFinder dijkstra = new RouteFinder(twoWay, false);
+
+  		ShortestPathResult result = aStar.findRoute(points[0], points[3]);
+  		Route expected = new Route(segments[0]).addSegment(segments[1]).addSegment(segments[2]);
+  		show("Shortest route along Trumpeldor Avenue",
+  			expected.equals(result.getRoute()) && result.getLength() == expected.getLength());
+  		show("Search statistics are reported",
+  			result.getSettledNodes() > 0 && result.getElapsedNanos() >= 0);
+
+  		boolean sameLengths = true;
+  		boolean fewerSettled = true;
+  		for (GeoPoint from: points) {
+  			for (GeoPoint to: points) {
+  				ShortestPathResult a = aStar.findRoute(from, to);
+  				ShortestPathResult d = dijkstra.findRoute(from, to);
+  				sameLengths &= Math.abs(a.getLength() - d.getLength()) < 1e-9 ||
+  							   a.getLength() == d.getLength();
+  				fewerSettled &= a.getSettledNodes() <= d.getSettledNodes();
+  				if (a.getRoute() != null) {
+  					sameLengths &= a.getRoute().getStart().equals(from) &&
+  								   a.getRoute().getEnd().equals(to) &&
+  								   Math.abs(a.getRoute().getLength() - a.getLength()) < 1e-9;
+  				}
+  			}
+  		}
+  		show("A* and Dijkstra find routes of the same length", sameLengths);
+  		show("A* settles no more nodes than Dijkstra", fewerSettled);
+  		show("Distances between node ids match route lengths",
+  			Math.abs(aStar.findDistance(twoWay.getNodeId(points[0]), twoWay.getNodeId(points[3])) -
+  					 result.getLength()) < 1e-9);
+
+  		RouteFinder oneWayFinder = new RouteFinder(oneWay);
+  		ShortestPathResult around = oneWayFinder.findRoute(points[1], points[0]);
+  		show("One-way routes follow the segment directions",
+  			around.getRoute() != null && around.getRoute().getLength() > result.getLength());
+  		RouteFinder single = new RouteFinder(new RoadGraph(Arrays.asList(segments[0]), false));
+  		show("Unreachable destinations have no route",
+  			single.findRoute(points[1], points[0]).getRoute() == null &&
+  			single.findRoute(points[1], points[0]).getLength() == Double.POSITIVE_INFINITY);
+  		show("Points that are not nodes have no route",
+  			aStar.findRoute(new GeoPoint(0, 0), points[0]).getRoute() == null);
+  		show("A point has no route to itself",
+  			aStar.findRoute(points[0], points[0]).getRoute() == null);
+  		show("A point is at distance 0 from itself",
+  			aStar.findRoute(points[0], points[0]).getLength() == 0);
+  		show("A point that is not a node is at no distance from itself",
+  			aStar.findRoute(new GeoPoint(0, 0), new GeoPoint(0, 0)).getLength() == Double.POSITIVE_INFINITY);
+  	}
+
+
+  	public void testContractionHierarchy() {
+  		show("ContractionHierarchy");
+  		show("Example graphs, two-way", sameAsDijkstra(twoWay, new ContractionHierarchy(twoWay)));
+  		show("Example graphs, one-way", sameAsDijkstra(oneWay, new ContractionHierarchy(oneWay)));
+
+  		RoadGraph city = new RoadGraph(grid(20, 1), false);
+  		ContractionHierarchy hierarchy = new ContractionHierarchy(city);
+  		show("Grid with one-way streets", sameAsDijkstra(city, hierarchy));
+
+  		HierarchyRouteFinder finder = new HierarchyRouteFinder(hierarchy);
+  		GeoPoint from = city.getNode(0);
+  		GeoPoint to = city.getNode(city.getNodeCount() - 1);
+  		ShortestPathResult result = finder.findRoute(from, to);
+  		ShortestPathResult dijkstra = new RouteFinder(city, false).findRoute(from, to);
+  		show("Hierarchy queries settle fewer nodes than Dijkstra",
+  			result.getSettledNodes() < dijkstra.getSettledNodes());
+  		show("Unpacked routes are made of graph segments",
+  			result.getRoute() != null && result.getRoute().getStart().equals(from) &&
+  			result.getRoute().getEnd().equals(to) &&
+  			Math.abs(result.getRoute().getLength() - dijkstra.getLength()) < 1e-9);
+  		show("Unpacked routes can be formatted",
+  			new DrivingRouteFormatter().computeDirections(result.getRoute(), 0).length() > 0);
+
+  		try {
+  			Path file = Files.createTempFile("hierarchy", ".ch");
+  			try {
+  				hierarchy.write(file);
+  				ContractionHierarchy read = ContractionHierarchy.read(file, city);
+  				show("Written hierarchies read back the same",
+  					read.getShortcutCount() == hierarchy.getShortcutCount() &&
+  					sameAsDijkstra(city, read));
+  				boolean rejected = false;
+  				try {
+  					ContractionHierarchy.read(file, twoWay);
+  				} catch (IOException e) {
+  					rejected = true;
+  				}
+  				show("Hierarchies are not read for another graph", rejected);
+  				rejected = false;
+  				try {
+  					ContractionHierarchy.read(file, new RoadGraph(grid(20, 1), false, true));
+  				} catch (IOException e) {
+  					rejected = true;
+  				}
+  				show("Hierarchies are not read for a renumbered graph of the same size", rejected);
+  				byte[] bytes = Files.readAllBytes(file);
+  				bytes[bytes.length / 2] ^= 0x10;
+  				Files.write(file, bytes);
+  				rejected = false;
+  				try {
+  					ContractionHierarchy.read(file, city);
+  				} catch (IOException e) {
+  					rejected = true;
+  				}
+  				show("Damaged hierarchy files are not read", rejected);
+  			} finally {
+  				Files.deleteIfExists(file);
+  			}
+  		} catch (IOException e) {
+  			show("Hierarchy round trip failed: " + e, false);
+  		}
+  	}
+
+
+  	public void testDistanceMatrix() {
+  		show("DistanceMatrix");
+  		RoadGraph city = new RoadGraph(grid(20, 2), false);
+  		DistanceMatrix matrix = new DistanceMatrix(city);
+  		RouteFinder finder = new RouteFinder(city, false);
+
+  		GeoPoint[] depots = new GeoPoint[7];
+  		GeoPoint[] jobs = new GeoPoint[30];
+  		Random random = new Random(3);
+  		for (int i = 0; i < depots.length; i++) {
+  			depots[i] = city.getNode(random.nextInt(city.getNodeCount()));
+  		}
+  		for (int j = 0; j < jobs.length; j++) {
+  			jobs[j] = city.getNode(random.nextInt(city.getNodeCount()));
+  		}
+  		jobs[0] = depots[0];
+  		jobs[1] = new GeoPoint(0, 0);
+
+  		double[] distances = matrix.computeDistances(depots, jobs);
+  		Route[] routes = matrix.computeRoutes(depots, jobs);
+  		boolean sameDistances = distances.length == depots.length * jobs.length;
+  		boolean sameRoutes = routes.length == distances.length;
+  		for (int i = 0; i < depots.length; i++) {
+  			for (int j = 0; j < jobs.length; j++) {
+  				int cell = i * jobs.length + j;
+  				int target = city.getNodeId(jobs[j]);
+  				double expected = target < 0 ? Double.POSITIVE_INFINITY
+  											 : finder.findDistance(city.getNodeId(depots[i]), target);
+  				sameDistances &= distances[cell] == expected;
+  				sameRoutes &= routes[cell] == null ? expected == 0 || Double.isInfinite(expected)
+  												   : Math.abs(routes[cell].getLength() - expected) < 1e-9 &&
+  													 routes[cell].getEnd().equals(jobs[j]);
+  			}
+  		}
+  		show("Distances match one-to-one searches", sameDistances);
+  		show("A point is at distance 0 from itself", distances[0] == 0);
+  		show("Points that are not nodes are unreachable",
+  			distances[1] == Double.POSITIVE_INFINITY && routes[1] == null);
+  		show("Routes are built on request and match the distances", sameRoutes);
+  		show("Empty matrices",
+  			matrix.computeDistances(new GeoPoint[0], jobs).length == 0 &&
+  			matrix.computeDistances(depots, new GeoPoint[0]).length == 0);
+  		GeoPoint[] many = new GeoPoint[50000];
+  		Arrays.fill(many, depots[0]);
+  		boolean tooLarge = false;
+  		try {
+  			matrix.computeDistances(many, many);
+  		} catch (IllegalArgumentException e) {
+  			tooLarge = true;
+  		}
+  		show("Matrices too large for an array are rejected", tooLarge);
+  	}
+
+
+  	public void testIsochrone() {
+  		show("Isochrone");
+  		Isochrone isochrone = new Isochrone(twoWay);
+  		RouteFinder finder = new RouteFinder(twoWay, false);
+  		double minutesPerKilometer = WalkingRouteFormatter.MINUTES_PER_KILOMETER;
+
+  		List<GeoSegment> all = isochrone.computeReachable(points[0], 1000, TravelMode.WALKING);
+  		show("A large budget reaches every edge", all.size() == twoWay.getEdgeCount());
+  		show("A start that is not a node reaches nothing",
+  			isochrone.computeReachable(new GeoPoint(0, 0), 1000, TravelMode.WALKING).isEmpty());
+
+  		List<GeoSegment> minute = isochrone.computeReachable(points[0], 1, TravelMode.WALKING);
+  		boolean clipped = !minute.isEmpty();
+  		for (GeoSegment segment: minute) {
+  			clipped &= segment.getP1().equals(points[0]) &&
+  					   Math.abs(segment.getLength() * minutesPerKilometer - 1) < 0.01;
+  		}
+  		show("Segments longer than the budget are clipped", clipped);
+
+  		double budget = 15;
+  		List<GeoSegment> reachable = isochrone.computeReachable(points[5], budget, TravelMode.WALKING);
+  		int start = twoWay.getNodeId(points[5]);
+  		boolean inTime = true;
+  		int whole = 0;
+  		for (GeoSegment segment: reachable) {
+  			double minutes = (finder.findDistance(start, twoWay.getNodeId(segment.getP1())) +
+  							  segment.getLength()) * minutesPerKilometer;
+  			inTime &= minutes <= budget + 0.01;
+  			whole += twoWay.getNodeId(segment.getP2()) >= 0 ? 1 : 0;
+  		}
+  		int expectedWhole = 0;
+  		for (int e = 0; e < twoWay.getEdgeCount(); e++) {
+  			double minutes = (finder.findDistance(start, twoWay.getEdgeSource(e)) +
+  							  twoWay.getEdgeWeight(e)) * minutesPerKilometer;
+  			expectedWhole += minutes <= budget ? 1 : 0;
+  		}
+  		show("Every reachable segment is reached in time", inTime);
+  		show("Every edge reachable in time is reported whole", whole == expectedWhole);
+
+  		TravelMode cycling = TravelMode.atMinutesPerKilometer(4);
+  		show("Faster travel modes reach further",
+  			isochrone.computeReachable(points[5], budget, cycling).size() > reachable.size());
+
+  		RoadGraph city = new RoadGraph(grid(15, 5), true);
+  		Isochrone shared = new Isochrone(city);
+  		List<List<GeoSegment>> expected = new ArrayList<>();
+  		for (int node = 0; node < city.getNodeCount(); node++) {
+  			expected.add(new Isochrone(city).computeReachable(city.getNode(node), 5, TravelMode.WALKING));
+  		}
+  		java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+  		List<java.util.concurrent.Future<Boolean>> results = new ArrayList<>();
+  		for (int t = 0; t < 4; t++) {
+  			int first = t;
+  			results.add(executor.submit(() -> {
+  				boolean same = true;
+  				for (int round = 0; round < 5; round++) {
+  					for (int node = first; node < city.getNodeCount(); node += 4) {
+  						same &= shared.computeReachable(city.getNode(node), 5, TravelMode.WALKING)
+  									  .equals(expected.get(node));
+  					}
+  				}
+  				return same;
+  			}));
+  		}
+  		boolean concurrent = true;
+  		try {
+  			for (java.util.concurrent.Future<Boolean> result: results) {
+  				concurrent &= result.get();
+  			}
+  		} catch (Exception e) {
+  			concurrent = false;
+  		}
+  		executor.shutdown();
+  		show("Concurrent queries match single-threaded ones", concurrent);
+  	}
+
+
+  	public void testTurnAwareRouteFinder() {
+  		show("TurnAwareRouteFinder");
+  		boolean classesMatch = true;
+  		for (int e = 0; e < twoWay.getEdgeCount(); e++) {
+  			int node = twoWay.getEdgeTarget(e);
+  			for (int f = twoWay.getEdgesStart(node); f < twoWay.getEdgesEnd(node); f++) {
+  				classesMatch &= twoWay.getTurnClass(e, f) ==
+  					TurnClass.of(twoWay.getEdgeSegment(e).getHeading(),
+  								 twoWay.getEdgeSegment(f).getHeading());
+  			}
+  		}
+  		show("The turn table holds the turn of every pair of edges", classesMatch);
+  		boolean backIsUTurn = true;
+  		for (int e = 0; e < twoWay.getEdgeCount(); e++) {
+  			int node = twoWay.getEdgeTarget(e);
+  			for (int f = twoWay.getEdgesStart(node); f < twoWay.getEdgesEnd(node); f++) {
+  				if (twoWay.getEdgeSegment(f).equals(twoWay.getEdgeSegment(e).reverse())) {
+  					backIsUTurn &= twoWay.getTurnClass(e, f) == TurnClass.U_TURN;
+  				}
+  			}
+  		}
+  		show("Turning back is a U-turn", backIsUTurn);
+
+  		RoadGraph city = new RoadGraph(grid(15, 4), false);
+  		RouteFinder dijkstra = new RouteFinder(city, false);
+  		TurnAwareRouteFinder unpenalized = new TurnAwareRouteFinder(city, TurnPenalties.NONE);
+  		TurnAwareRouteFinder driving = new TurnAwareRouteFinder(city, TurnPenalties.DRIVING);
+  		boolean shortest = true;
+  		boolean cheapest = true;
+  		int shortestTurns = 0;
+  		int drivingTurns = 0;
+  		for (int source = 0; source < city.getNodeCount(); source += 7) {
+  			for (int target = 0; target < city.getNodeCount(); target += 5) {
+  				GeoPoint from = city.getNode(source);
+  				GeoPoint to = city.getNode(target);
+  				ShortestPathResult expected = dijkstra.findRoute(from, to);
+  				ShortestPathResult plain = unpenalized.findRoute(from, to);
+  				ShortestPathResult penalized = driving.findRoute(from, to);
+  				shortest &= expected.getLength() == plain.getLength() ||
+  							Math.abs(expected.getLength() - plain.getLength()) < 1e-9;
+  				if (expected.getRoute() != null) {
+  					double expectedCost = cost(expected.getRoute(), TurnPenalties.DRIVING);
+  					double cost = cost(penalized.getRoute(), TurnPenalties.DRIVING);
+  					cheapest &= cost <= expectedCost + 1e-9 &&
+  								penalized.getLength() >= expected.getLength() - 1e-9;
+  					shortestTurns += turns(expected.getRoute());
+  					drivingTurns += turns(penalized.getRoute());
+  				}
+  			}
+  		}
+  		show("Without penalties, routes are shortest", shortest);
+  		show("With penalties, routes are cheapest", cheapest);
+  		show("With penalties, routes turn less", drivingTurns < shortestTurns);
+  	}
+
+
+  	/**
+  	 * Returns the length of route plus the penalties of its turns.
+  	 */
+  	private static double cost(Route route, TurnPenalties penalties) {
+  		double cost = route.getLength();
+  		GeoSegment previous = null;
+  		for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); ) {
+  			GeoSegment segment = it.next();
+  			if (previous != null) {
+  				cost += penalties.getPenalty(TurnClass.of(previous.getHeading(), segment.getHeading()));
+  			}
+  			previous = segment;
+  		}
+  		return cost;
+  	}
+
+
+  	/**
+  	 * Returns the number of turns along route that are not CONTINUE.
+  	 */
+  	private static int turns(Route route) {
+  		int turns = 0;
+  		GeoSegment previous = null;
+  		for (Iterator<GeoSegment> it = route.getGeoSegments(); it.hasNext(); ) {
+  			GeoSegment segment = it.next();
+  			if (previous != null &&
+  					TurnClass.of(previous.getHeading(), segment.getHeading()) != TurnClass.CONTINUE) {
+  				turns++;
+  			}
+  			previous = segment;
+  		}
+  		return turns;
+  	}
+
+
+  	/**
+  	 * Returns whether every distance and route hierarchy finds in graph
+  	 * has the length Dijkstra finds.
+  	 */
+  	private static boolean sameAsDijkstra(RoadGraph graph, ContractionHierarchy hierarchy) {
+  		RouteFinder dijkstra = new RouteFinder(graph, false);
+  		HierarchyRouteFinder finder = new HierarchyRouteFinder(hierarchy);
+  		boolean same = true;
+  		int step = Math.max(1, graph.getNodeCount() / 40);
+  		for (int source = 0; source < graph.getNodeCount(); source += step) {
+  			for (int target = 0; target < graph.getNodeCount(); target++) {
+  				double expected = dijkstra.findDistance(source, target);
+  				double actual = finder.findDistance(source, target);
+  				same &= expected == actual || Math.abs(expected - actual) < 1e-9;
+  				ShortestPathResult result = finder.findRoute(graph.getNode(source), graph.getNode(target));
+  				Route route = result.getRoute();
+  				same &= result.getLength() == expected || Math.abs(result.getLength() - expected) < 1e-9;
+  				same &= route == null ? source == target || Double.isInfinite(expected)
+  									  : Math.abs(route.getLength() - expected) < 1e-9;
+  			}
+  		}
+  		return same;
+  	}
+
+
+  	/**
+  	 * Returns the segments of a size x size grid of streets with jittered
+  	 * intersections, where every third street is one-way.
+  	 */
+  	static List<GeoSegment> grid(int size, long seed) {
+  		Random random = new Random(seed);
+  		GeoPoint[][] points = new GeoPoint[size][size];
+  		for (int i = 0; i < size; i++) {
+  			for (int j = 0; j < size; j++) {
+  				points[i][j] = new GeoPoint(32780000 + 1000 * i + random.nextInt(400),
+  											35000000 + 1000 * j + random.nextInt(400));
+  			}
+  		}
+  		List<GeoSegment> segments = new ArrayList<>();
+  		for (int i = 0; i < size; i++) {
+  			for (int j = 0; j + 1 < size; j++) {
+  				addStreet(segments, "Street " + i, points[i][j], points[i][j + 1], i % 3 == 0);
+  				addStreet(segments, "Avenue " + i, points[j][i], points[j + 1][i], i % 3 == 1);
+  			}
+  		}
+  		return segments;
+  	}
+
+
+  	private static void addStreet(List<GeoSegment> segments, String name, GeoPoint p1, GeoPoint p2,
+  								  boolean oneWay) {
+  		segments.add(new GeoSegment(name, p1, p2));
+  		if (!oneWay) {
+  			segments.add(new GeoSegment(name, p2, p1));
+  		}
+  	}
+
+
+	public static void main(String[] args) {
+		RoadGraphTest graphTest = new RoadGraphTest();
+		graphTest.test();
+		graphTest.testHilbertOrder();
+		graphTest.testRouteFinder();
+		graphTest.testContractionHierarchy();
+		graphTest.testDistanceMatrix();
+		graphTest.testIsochrone();
+		graphTest.testTurnAwareRouteFinder();
+	}
+}
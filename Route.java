@@ -1,7 +1,11 @@
 package homework1;
 
 import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.stream.Stream;
 
 /**
  * A Route is a path that traverses arbitrary GeoSegments, regardless
@@ -34,15 +38,34 @@ import java.util.Iterator;
  **/
 public class Route {
 
-	private final ArrayList<GeoFeature> geoFeatureList;
+	// all the features of this Route but the last one. Shared with the
+	// Routes this was created from by addSegment(), so appending a segment
+	// does not copy the sequence.
+	private final PersistentSequence<GeoFeature> previousFeatures;
+
+	// the last feature of this Route, the only one addSegment() may extend.
+	private final GeoFeature lastFeature;
+
+	// a read-only view of previousFeatures followed by lastFeature.
+	private final List<GeoFeature> geoFeatureList;
+
+	// the segments of all the features of this Route, in order, and
+	// cumulativeLengths[i] is the total length of the first i of them. Both
+	// are shared the same way as previousFeatures.
+	private final PersistentSequence<GeoSegment> geoSegmentList;
+	private final PersistentDoubleSequence cumulativeLengths;
 	
 	// Abstraction Function:
 	// The sequence of geographic features that make up this Route are represented by the 
-	// geoFeatureList.
+	// geoFeatureList, which is previousFeatures followed by lastFeature.
 
-	// Representation invariant: geoFeatureList != null && geoFeatureList.size > 0 &&
+	// Representation invariant: previousFeatures != null && lastFeature != null &&
 	// for every two consecutive GeoFeatures gf_1 and gf_2 in geoFeatureList gf_1 != null &&
-	// gf_2 != null && gf_1.name != gf_2.name && gf_1.end == gf_2.start. 
+	// gf_2 != null && gf_1.name != gf_2.name && gf_1.end == gf_2.start &&
+	// geoSegmentList = the concatenation of the segments of geoFeatureList &&
+	// cumulativeLengths.size = geoSegmentList.size + 1 &&
+	// cumulativeLengths[0] = 0 && cumulativeLengths[i + 1] = cumulativeLengths[i] +
+	// (length of segment i). 
 	
 
   	/**
@@ -55,11 +78,9 @@ public class Route {
      *          r.end = gs.p2
      **/
   	public Route(GeoSegment gs) {  		
-  		GeoFeature feature = new GeoFeature(gs);
-  		this.geoFeatureList = new ArrayList<>();
-  		this.geoFeatureList.add(feature);
-
-  		assert(this.checkRep());
+  		this(new PersistentSequence<GeoFeature>(), new GeoFeature(gs),
+  			 new PersistentSequence<GeoSegment>().append(gs),
+  			 new PersistentDoubleSequence(0).append(gs.getLength()));
   	}
   	
   	
@@ -76,8 +97,34 @@ public class Route {
      *          r.length = sum of lengths of features in featureList; 
      **/
   	public Route(ArrayList<GeoFeature> featureList) {
-  		this.geoFeatureList = (ArrayList<GeoFeature>)featureList.clone();
-  		assert(this.checkRep());
+  		this(new PersistentSequence<GeoFeature>(featureList.subList(0, featureList.size() - 1)),
+  			 featureList.get(featureList.size() - 1),
+  			 new PersistentSequence<GeoSegment>(flattenFeatureList(featureList)),
+  			 cumulativeLengthsOf(featureList));
+  		assert(!ValidationLevel.onConstruction() || this.checkRep());
+  	}
+
+
+  	/**
+  	 * Constructs a new Route.
+     * @requires previousFeatures != null && lastFeature != null &&
+     * 			 previousFeatures followed by lastFeature meet the requirements
+     * 			 of Route(ArrayList) && geoSegmentList holds their segments &&
+     * 			 cumulativeLengths holds the cumulative lengths of geoSegmentList.
+     * @effects Constructs a new Route, r, such that r.geoFeatures is
+     * 			previousFeatures followed by lastFeature, sharing
+     * 			previousFeatures rather than copying it. Only lastFeature is
+     * 			validated, since previousFeatures already belong to a Route.
+     **/
+  	private Route(PersistentSequence<GeoFeature> previousFeatures, GeoFeature lastFeature,
+  			PersistentSequence<GeoSegment> geoSegmentList,
+  			PersistentDoubleSequence cumulativeLengths) {
+  		this.previousFeatures = previousFeatures;
+  		this.lastFeature = lastFeature;
+  		this.geoSegmentList = geoSegmentList;
+  		this.cumulativeLengths = cumulativeLengths;
+  		this.geoFeatureList = new FeatureList();
+  		assert(!ValidationLevel.onConstruction() || this.checkLastFeature());
   	}
 
 
@@ -86,9 +133,9 @@ public class Route {
      * @return location of the start of the route.
      **/
   	public GeoPoint getStart() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		GeoPoint startPoint = this.geoFeatureList.get(0).getStart();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return startPoint;
   	}
 
@@ -98,9 +145,9 @@ public class Route {
      * @return location of the end of the route.
      **/
   	public GeoPoint getEnd() {
-  		assert(this.checkRep());
-  		GeoPoint endPoint = this.geoFeatureList.get(0).getEnd();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		GeoPoint endPoint = this.lastFeature.getEnd();
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return endPoint;
   	}
 
@@ -112,9 +159,9 @@ public class Route {
    	 *         geographic feature is 0.
    	 **/
   	public double getStartHeading() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		double startHeading = this.geoFeatureList.get(0).getStartHeading();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return startHeading;
   	}
 
@@ -126,9 +173,9 @@ public class Route {
      *         rout is 0.
      **/
   	public double getEndHeading() {
-  		assert(this.checkRep());
-  		double endHeading = geoFeatureList.get(geoFeatureList.size() -1).getEndHeading();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		double endHeading = lastFeature.getEndHeading();
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return endHeading;
   	}
 
@@ -140,13 +187,112 @@ public class Route {
      *         traverse the route. These values are not necessarily equal.
    	 **/
   	public double getLength() {
-  		assert(this.checkRep());
-  		double length = 0;
-  		for (GeoFeature feature: geoFeatureList) {
-  			length += feature.getLength();
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return cumulativeLengths.getLast();
+  	}
+
+
+  	/**
+  	 * Returns the number of segments in the route.
+     * @return the number of GeoSegments returned by getGeoSegments().
+     **/
+  	public int getSegmentCount() {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return cumulativeLengths.size() - 1;
+  	}
+
+
+  	/**
+  	 * Returns the length of part of the route, in kilometers.
+  	 * @requires 0 <= i <= j <= this.getSegmentCount()
+  	 * @return the total length of the segments a[i] through a[j - 1],
+  	 *         where a[n] denotes the nth element of getGeoSegments().
+  	 * @throws IndexOutOfBoundsException if i or j is out of range.
+  	 **/
+  	public double lengthBetween(int i, int j) {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return cumulativeLengths.get(j) - cumulativeLengths.get(i);
+  	}
+
+
+  	/**
+  	 * Returns the distance traveled along the route from its start to the
+  	 * start of a segment, in kilometers.
+  	 * @requires 0 <= segmentIndex <= this.getSegmentCount()
+  	 * @return the total length of the segments a[0] through
+  	 *         a[segmentIndex - 1], where a[n] denotes the nth element of
+  	 *         getGeoSegments(). For segmentIndex = getSegmentCount() this is
+  	 *         the length of the route.
+  	 * @throws IndexOutOfBoundsException if segmentIndex is out of range.
+  	 **/
+  	public double distanceAlongRouteAt(int segmentIndex) {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return cumulativeLengths.get(segmentIndex);
+  	}
+
+
+  	/**
+  	 * Returns the index of the segment at a distance along the route.
+  	 * @return the index i of the segment a[i] that is reached after
+  	 *         traveling distance kilometers along the route from its start,
+  	 *         where a[n] denotes the nth element of getGeoSegments(). That
+  	 *         is, the largest i such that distanceAlongRouteAt(i) <= distance.
+  	 *         Distances before the start of the route give 0, and distances
+  	 *         after its end give the index of the last segment.
+  	 **/
+  	public int segmentIndexAtDistance(double distance) {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return cumulativeLengths.lastIndexAtMost(distance, 0, geoSegmentList.size() - 1);
+  	}
+
+
+  	/**
+  	 * Returns the segment at a distance along the route.
+  	 * @return a[segmentIndexAtDistance(distance)], where a[n] denotes the
+  	 *         nth element of getGeoSegments().
+  	 **/
+  	public GeoSegment segmentAtDistance(double distance) {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return geoSegmentList.get(segmentIndexAtDistance(distance));
+  	}
+
+
+  	/**
+  	 * Returns the location reached after traveling a distance along the route.
+  	 * @return the point reached after traveling distance kilometers along the
+  	 *         route from its start, interpolated linearly between the
+  	 *         endpoints of segmentAtDistance(distance) and rounded to
+  	 *         millionths of degrees. Distances before the start of the route
+  	 *         give this.start, and distances after its end give this.end.
+  	 **/
+  	public GeoPoint pointAtDistance(double distance) {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return pointOnSegment(segmentIndexAtDistance(distance), distance);
+  	}
+
+
+  	/**
+  	 * Returns the locations reached after traveling each of several distances
+  	 * along the route. The distances are looked up in a single pass over the
+  	 * route, which is faster than calling pointAtDistance() for each of
+  	 * them when there are many.
+  	 * @requires distances != null && distances is sorted in ascending order
+  	 * @return an array points such that points.length = distances.length
+  	 *         and points[i] = pointAtDistance(distances[i]).
+  	 **/
+  	public GeoPoint[] pointsAtDistances(double[] distances) {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		GeoPoint[] points = new GeoPoint[distances.length];
+  		int lastSegment = geoSegmentList.size() - 1;
+  		int segmentIndex = 0;
+  		for (int i = 0; i < distances.length; i++) {
+  			while (segmentIndex < lastSegment &&
+  					cumulativeLengths.get(segmentIndex + 1) <= distances[i]) {
+  				segmentIndex++;
+  			}
+  			points[i] = pointOnSegment(segmentIndex, distances[i]);
   		}
-  		assert(this.checkRep());
-  		return length;
+  		return points;
   	}
 
 
@@ -160,22 +306,22 @@ public class Route {
      *         r.length = this.length + gs.length
      **/
   	public Route addSegment(GeoSegment gs) {
-  		assert(this.checkRep());
-  		ArrayList<GeoFeature> newFeatureList = (ArrayList<GeoFeature>)this.geoFeatureList.clone();
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		
-  		GeoFeature newFeature;
-  		GeoFeature lastFeature = newFeatureList.get(newFeatureList.size()-1);
+		Route newRoute;
   		String lastFeatureName = lastFeature.getName();
+  		PersistentSequence<GeoSegment> newGeoSegmentList = geoSegmentList.append(gs);
+  		PersistentDoubleSequence newCumulativeLengths =
+  				cumulativeLengths.append(cumulativeLengths.getLast() + gs.getLength());
   		if (gs.getName().equals(lastFeatureName)) {
-  			newFeatureList.remove(lastFeature);
-  			newFeature = lastFeature.addSegment(gs);
+  			newRoute = new Route(previousFeatures, lastFeature.addSegment(gs),
+  								 newGeoSegmentList, newCumulativeLengths);
   		} else {
-  			newFeature = new GeoFeature(gs);
+  			newRoute = new Route(previousFeatures.append(lastFeature), new GeoFeature(gs),
+  								 newGeoSegmentList, newCumulativeLengths);
   		}
-  		newFeatureList.add(newFeature);
   		
-		Route newRoute = new Route(newFeatureList);
-		assert(this.checkRep());
+		assert(!ValidationLevel.onAccess() || this.checkRep());
 		return newRoute;
   		
   	}
@@ -200,9 +346,9 @@ public class Route {
      * @see homework1.GeoFeature
      **/
   	public Iterator<GeoFeature> getGeoFeatures() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		Iterator<GeoFeature> iterator = this.geoFeatureList.iterator();
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return iterator;
   	}
 
@@ -222,10 +368,36 @@ public class Route {
      * @see homework1.GeoSegment
      **/
   	public Iterator<GeoSegment> getGeoSegments() {
-  		assert(this.checkRep());
-  		ArrayList<GeoSegment> segments = this.flattenFeatureList(this.geoFeatureList);
-  		assert(this.checkRep());
-  		return segments.iterator();
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		Iterator<GeoSegment> iterator = this.geoSegmentList.iterator();
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return iterator;
+  	}
+
+
+  	/**
+     * Returns a sequential Stream of the GeoFeature objects of this route,
+     * in the order of getGeoFeatures(). The Stream is sized and can be
+     * split evenly, so parallel() Streams divide the work between threads.
+     * @return a Stream of the elements of getGeoFeatures(), in order.
+     * @see #getGeoFeatures()
+     **/
+  	public Stream<GeoFeature> features() {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return this.geoFeatureList.stream();
+  	}
+
+
+  	/**
+     * Returns a sequential Stream of the GeoSegment objects of this route,
+     * in the order of getGeoSegments(). The Stream is sized and can be
+     * split evenly, so parallel() Streams divide the work between threads.
+     * @return a Stream of the elements of getGeoSegments(), in order.
+     * @see #getGeoSegments()
+     **/
+  	public Stream<GeoSegment> segments() {
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
+  		return this.geoSegmentList.stream();
   	}
 
 
@@ -236,12 +408,12 @@ public class Route {
      *          the same elements in the same order).
      **/
   	public boolean equals(Object obj) {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
 		if (!(obj instanceof Route))
 			return false;
 		Route otherRoute = (Route)obj;
 		boolean isEqual = otherRoute.geoFeatureList.equals(this.geoFeatureList);
-		assert(this.checkRep());
+		assert(!ValidationLevel.onAccess() || this.checkRep());
 		return isEqual;
   	}
 
@@ -251,7 +423,7 @@ public class Route {
      * @return a hash code for this.
      **/
   	public int hashCode() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
     	return 1;
   	}
 
@@ -261,13 +433,13 @@ public class Route {
      * @return a string representation of this.
      **/
   	public String toString() {
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		String representationString = "";
   		for (GeoFeature feature: geoFeatureList) {
   			representationString += feature;
   			representationString += "\n";
   		}
-  		assert(this.checkRep());
+  		assert(!ValidationLevel.onAccess() || this.checkRep());
   		return representationString;
   	}
 
@@ -278,7 +450,7 @@ public class Route {
    	 * @requires featureList != null && featureList.size > 0
    	 * 			 && featureList does not contain null. 
      **/
-  	private static ArrayList<GeoSegment> flattenFeatureList(ArrayList<GeoFeature> featureList) {
+  	private static ArrayList<GeoSegment> flattenFeatureList(List<GeoFeature> featureList) {
   		ArrayList<GeoSegment> segmentList = new ArrayList<>();
   		for (GeoFeature feature:featureList) {
   			Iterator<GeoSegment> featureIterator = feature.getGeoSegments();
@@ -290,11 +462,46 @@ public class Route {
   	}
  
   	
+  	/**
+     * @effects returns the point reached after traveling distance
+     * 			kilometers along the route, assuming it is reached on the
+     * 			segment at index segmentIndex. The point is clamped to the
+     * 			endpoints of that segment.
+   	 * @requires 0 <= segmentIndex < this.geoSegmentList.size()
+     **/
+  	private GeoPoint pointOnSegment(int segmentIndex, double distance) {
+  		GeoSegment segment = geoSegmentList.get(segmentIndex);
+  		double segmentLength = segment.getLength();
+  		double fraction = segmentLength == 0 ? 0 :
+  			(distance - cumulativeLengths.get(segmentIndex)) / segmentLength;
+  		return GeoPoint.between(segment.getP1(), segment.getP2(), fraction);
+  	}
+
+
+  	/**
+     * @effects returns the cumulative lengths of the segments of the
+     * 			features in featureList, starting with 0.
+   	 * @requires featureList != null && featureList does not contain null.
+     **/
+  	private static PersistentDoubleSequence cumulativeLengthsOf(List<GeoFeature> featureList) {
+  		PersistentDoubleSequence lengths = new PersistentDoubleSequence(0);
+  		for (GeoFeature feature:featureList) {
+  			Iterator<GeoSegment> featureIterator = feature.getGeoSegments();
+  			while(featureIterator.hasNext()) {
+  				lengths = lengths.append(lengths.getLast() + featureIterator.next().getLength());
+  			}
+  		}
+  		return lengths;
+  	}
+
+
   	/**
      * @effects returns true iff the representation invariant holds.
      **/
   	private boolean checkRep() {
-  		if (geoFeatureList == null || geoFeatureList.size() < 1 || geoFeatureList.contains(null)) {
+  		if (previousFeatures == null || lastFeature == null || geoFeatureList == null ||
+  				previousFeatures.contains(null) || geoSegmentList == null ||
+  				cumulativeLengths == null || cumulativeLengths.size() != geoSegmentList.size() + 1) {
   			return false;
   		}
   		return this.checkNoConsecutiveFeaturesWithSameName() &&
@@ -302,6 +509,24 @@ public class Route {
   	}
 
   	
+  	/**
+     * @effects returns true iff lastFeature is not null and, if it has a
+     * 			predecessor, begins at its end and has a different name.
+     **/
+  	private boolean checkLastFeature() {
+  		if (previousFeatures == null || lastFeature == null || geoSegmentList == null ||
+  				cumulativeLengths == null || cumulativeLengths.size() != geoSegmentList.size() + 1) {
+  			return false;
+  		}
+  		if (previousFeatures.isEmpty()) {
+  			return true;
+  		}
+  		GeoFeature previousFeature = previousFeatures.getLast();
+  		return !previousFeature.getName().equals(lastFeature.getName()) &&
+  			   previousFeature.getEnd().equals(lastFeature.getStart());
+  	}
+
+  	
   	/**
      * @effects returns true iff no consecutive features in this.geoFeatureList 
      *          have the same name.
@@ -343,4 +568,20 @@ public class Route {
   		return true;
   	}
  
+
+  	/**
+  	 * A read-only List view of the features of the enclosing Route. Being a
+  	 * RandomAccess AbstractList, its Spliterator splits by index.
+  	 **/
+  	private class FeatureList extends AbstractList<GeoFeature> implements RandomAccess {
+
+  		public GeoFeature get(int index) {
+  			return index == previousFeatures.size() ? lastFeature : previousFeatures.get(index);
+  		}
+
+  		public int size() {
+  			return previousFeatures.size() + 1;
+  		}
+  	}
+
 }
@@ -0,0 +1,284 @@
+package homework1;
+
+/**
+ * A RouteFinder finds shortest routes between points of a RoadGraph.
+ * <p>
+ * Queries run A* search, using the straight-line, flat-earth distance to
+ * the destination (GeoPoint.distanceTo) as the heuristic. Since every edge
+ * is as long as the straight segment it was made from, that heuristic never
+ * overestimates, so the routes found are shortest. A RouteFinder made
+ * without the heuristic runs plain Dijkstra search instead.
+ * <p>
+ * A RouteFinder keeps its search state in primitive arrays sized for its
+ * graph and reuses them for every query, so queries allocate nothing but
+ * the Route they return. For the same reason, a RouteFinder must not be
+ * used by more than one thread at a time; use one RouteFinder per thread.
+ */
+public class RouteFinder {
+
+	private final RoadGraph graph;
+	private final boolean useHeuristic;
+
+	// the search state. distances[n] and parentEdges[n] are only meaningful
+	// if reachedInSearch[n] == search, so they need not be cleared between
+	// searches.
+	private final double[] distances;
+	private final int[] parentEdges;
+	private final int[] reachedInSearch;
+	private final NodeHeap heap;
+
+	// targetInSearch[n] == search iff n is a target of the current
+	// one-to-many search.
+	private final int[] targetInSearch;
+	private int search;
+
+	// Abstraction function: a RouteFinder finds routes in graph, using A* if
+	// useHeuristic and Dijkstra otherwise.
+	//
+	// Representation invariant: graph != null && distances, parentEdges,
+	// reachedInSearch and targetInSearch have one entry per node of graph.
+
+
+	/**
+	 * Constructs a new RouteFinder.
+	 * @requires graph != null
+	 * @effects Constructs a new RouteFinder that uses A* search on graph.
+	 **/
+	public RouteFinder(RoadGraph graph) {
+		this(graph, true);
+	}
+
+
+	/**
+	 * Constructs a new RouteFinder.
+	 * @requires graph != null
+	 * @effects Constructs a new RouteFinder on graph that uses A* search if
+	 *          useHeuristic, and Dijkstra search otherwise.
+	 **/
+	public RouteFinder(RoadGraph graph, boolean useHeuristic) {
+		this.graph = graph;
+		this.useHeuristic = useHeuristic;
+		int nodeCount = graph.getNodeCount();
+		distances = new double[nodeCount];
+		parentEdges = new int[nodeCount];
+		reachedInSearch = new int[nodeCount];
+		targetInSearch = new int[nodeCount];
+		heap = new NodeHeap(nodeCount);
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Finds a shortest route between two points.
+	 * @requires from != null && to != null
+	 * @return a ShortestPathResult r such that r.route is a shortest Route
+	 *         of edge segments of the graph from from to to, built by
+	 *         Route.addSegment(), or null if there is no such route of at
+	 *         least one segment (in particular, if from or to is not a node),
+	 *         and r.length is the length of r.route, 0 if from and to are the
+	 *         same node, or Double.POSITIVE_INFINITY if r.route is null
+	 *         otherwise.
+	 **/
+	public ShortestPathResult findRoute(GeoPoint from, GeoPoint to) {
+		long startTime = System.nanoTime();
+		int source = graph.getNodeId(from);
+		int target = graph.getNodeId(to);
+		if (source < 0 || target < 0 || source == target) {
+			return new ShortestPathResult(null, source >= 0 && source == target ? 0 : Double.POSITIVE_INFINITY,
+										  0, System.nanoTime() - startTime);
+		}
+		int settled = search(source, target);
+		Route route = null;
+		double length = Double.POSITIVE_INFINITY;
+		if (reachedInSearch[target] == search) {
+			route = buildRoute(target);
+			length = distances[target];
+		}
+		return new ShortestPathResult(route, length, settled, System.nanoTime() - startTime);
+	}
+
+
+	/**
+	 * Finds the length of a shortest route between two nodes, without
+	 * building the route.
+	 * @requires 0 <= source, target < graph.getNodeCount()
+	 * @return the length, in kilometers, of a shortest path in the graph
+	 *         from node source to node target, 0 if source == target, or
+	 *         Double.POSITIVE_INFINITY if there is no such path.
+	 **/
+	public double findDistance(int source, int target) {
+		search(source, target);
+		return reachedInSearch[target] == search ? distances[target] : Double.POSITIVE_INFINITY;
+	}
+
+
+	/**
+	 * Finds the lengths of shortest routes from one node to many, in a
+	 * single search that stops once every target is settled.
+	 * @requires 0 <= source < graph.getNodeCount() && targets != null &&
+	 *           every target is -1 or a node id &&
+	 *           offset + targets.length <= results.length
+	 * @modifies results, this
+	 * @effects sets results[offset + j], for every j, to
+	 *          findDistance(source, targets[j]), or to
+	 *          Double.POSITIVE_INFINITY if targets[j] is -1. Afterwards,
+	 *          routeTo(targets[j]) returns the route to targets[j].
+	 * @return the number of nodes settled.
+	 **/
+	int findDistances(int source, int[] targets, double[] results, int offset) {
+		search++;
+		heap.clear();
+		int remaining = 0;
+		for (int target: targets) {
+			if (target >= 0 && targetInSearch[target] != search) {
+				targetInSearch[target] = search;
+				remaining++;
+			}
+		}
+		reach(source, 0, -1, -1);
+		int settled = 0;
+		while (remaining > 0 && !heap.isEmpty()) {
+			int node = heap.poll();
+			settled++;
+			if (targetInSearch[node] == search) {
+				remaining--;
+			}
+			relaxEdges(node, -1);
+		}
+		for (int j = 0; j < targets.length; j++) {
+			int target = targets[j];
+			results[offset + j] = target >= 0 && reachedInSearch[target] == search
+								  ? distances[target] : Double.POSITIVE_INFINITY;
+		}
+		return settled;
+	}
+
+
+	/**
+	 * Returns the route the last search found to a node.
+	 * @requires the last search was run by findDistances() and
+	 *           0 <= target < graph.getNodeCount()
+	 * @return the shortest Route from the source of the last search to
+	 *         target, or null if target was not among its targets, was not
+	 *         reached, or is the source.
+	 **/
+	Route routeTo(int target) {
+		if (targetInSearch[target] != search || reachedInSearch[target] != search ||
+				parentEdges[target] < 0) {
+			return null;
+		}
+		return buildRoute(target);
+	}
+
+
+	/**
+	 * Returns the graph this searches.
+	 * @return the graph this searches.
+	 **/
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects runs a search from source that stops once target is settled,
+	 *          or once every node reachable from source is settled if target
+	 *          is -1. Afterwards, for every node n reached by the search,
+	 *          reachedInSearch[n] == search, and if n was settled,
+	 *          distances[n] is its distance from source and parentEdges[n]
+	 *          is the last edge of a shortest path to it (-1 for source).
+	 * @return the number of nodes settled.
+	 **/
+	private int search(int source, int target) {
+		search++;
+		heap.clear();
+		reach(source, 0, -1, target);
+		int settled = 0;
+		while (!heap.isEmpty()) {
+			int node = heap.poll();
+			settled++;
+			if (node == target) {
+				break;
+			}
+			relaxEdges(node, target);
+		}
+		return settled;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects reaches the targets of the edges leaving node, if that
+	 *          shortens the paths to them, in a search towards target.
+	 * @requires node has been settled.
+	 **/
+	private void relaxEdges(int node, int target) {
+		double distance = distances[node];
+		for (int e = graph.getEdgesStart(node); e < graph.getEdgesEnd(node); e++) {
+			int next = graph.getEdgeTarget(e);
+			double nextDistance = distance + graph.getEdgeWeight(e);
+			if (reachedInSearch[next] != search || nextDistance < distances[next]) {
+				reach(next, nextDistance, e, target);
+			}
+		}
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects records that node is reached at distance through parentEdge,
+	 *          and queues it with its A* key.
+	 **/
+	private void reach(int node, double distance, int parentEdge, int target) {
+		reachedInSearch[node] = search;
+		distances[node] = distance;
+		parentEdges[node] = parentEdge;
+		heap.insertOrDecrease(node, distance + estimate(node, target));
+	}
+
+
+	/**
+	 * @effects returns a lower bound of the distance from node to target,
+	 *          or 0 if this does not use the heuristic or target is -1.
+	 **/
+	private double estimate(int node, int target) {
+		if (!useHeuristic || target < 0) {
+			return 0;
+		}
+		return GeoPoint.distance(graph.getLatitude(node), graph.getLongitude(node),
+								 graph.getLatitude(target), graph.getLongitude(target));
+	}
+
+
+	/**
+	 * @effects returns the Route along the parent edges from the source of
+	 *          the last search to target.
+	 * @requires target was settled by the last search and is not its source.
+	 **/
+	private Route buildRoute(int target) {
+		int edgeCount = 0;
+		for (int node = target; parentEdges[node] >= 0; node = graph.getEdgeSource(parentEdges[node])) {
+			edgeCount++;
+		}
+		int[] edges = new int[edgeCount];
+		for (int node = target; parentEdges[node] >= 0; node = graph.getEdgeSource(parentEdges[node])) {
+			edges[--edgeCount] = parentEdges[node];
+		}
+		Route route = new Route(graph.getEdgeSegment(edges[0]));
+		for (int i = 1; i < edges.length; i++) {
+			route = route.addSegment(graph.getEdgeSegment(edges[i]));
+		}
+		return route;
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		int nodeCount = graph.getNodeCount();
+		return distances.length == nodeCount && parentEdges.length == nodeCount &&
+			   reachedInSearch.length == nodeCount && targetInSearch.length == nodeCount;
+	}
+}
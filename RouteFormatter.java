@@ -1,6 +1,17 @@
 package homework1;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.DecimalFormat;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A RouteFormatter class knows how to create a textual description of
@@ -9,6 +20,10 @@ import java.util.Iterator;
  */
 public abstract class RouteFormatter {
 
+	// lengths from here on are printed by Double.toString in scientific
+	// notation, so appendTenths() leaves them to DecimalFormat.
+	private static final double MAX_FIXED_POINT_LENGTH = 1000000;
+
   	/**
      * Give directions for following this Route, starting at its start point
      * and facing in the specified heading.
@@ -20,21 +35,158 @@ public abstract class RouteFormatter {
      * 	       human-readable directions from start to end along this route.
      **/
   	public String computeDirections(Route route, double heading) {
-  		// Implementation hint:
-		// This method should call computeLine() for each geographic
-		// feature in this route and concatenate the results into a single
-		// String.
-  		
+  		StringBuilder directions = new StringBuilder();
+  		try {
+  			computeDirections(route, heading, directions);
+  		} catch (IOException e) {
+  			// a StringBuilder never throws IOException.
+  			throw new UncheckedIOException(e);
+  		}
+        return directions.toString();
+  	}
+
+
+  	/**
+     * Writes directions for following this Route, starting at its start
+     * point and facing in the specified heading, to out. The directions are
+     * produced in a single pass over the route, one line per geographic
+     * feature, without building intermediate Strings.
+     * @requires route != null && out != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+   	 * @param out the destination of the directions.
+     * @effects appends to out the same newline-terminated directions that
+     * 			<tt>computeDirections(route, heading)</tt> returns.
+     * @throws IOException if out throws IOException.
+     **/
+  	public void computeDirections(Route route, double heading, Appendable out)
+  			throws IOException {
         Iterator<GeoFeature> it = route.getGeoFeatures();
         double liveDirection = heading;
-        String direction="";
-        
+
         while (it.hasNext()) {
             GeoFeature gf = it.next();
-            direction += computeLine(gf, liveDirection);
+            appendLine(out, gf, liveDirection);
             liveDirection=gf.getStartHeading();
         }
-        return direction;
+  	}
+
+
+  	/**
+     * Gives directions for following many Routes, formatting them in
+     * parallel on the common ForkJoinPool.
+     * @requires routes != null && headings != null && routes does not
+     * 			contain null && routes.size() == headings.length &&
+     * 			0 <= headings[i] < 360 for every i && the calling thread is
+     * 			not a thread of the common ForkJoinPool, such as one running
+     * 			a parallel stream
+     * @return a list whose i-th element is
+     * 		   <tt>computeDirections(routes.get(i), headings[i])</tt>.
+     * @see #computeDirectionsBatch(List, double[], Executor, int, BatchMetrics)
+     **/
+  	public List<String> computeDirectionsBatch(List<Route> routes, double[] headings) {
+  		ForkJoinPool pool = ForkJoinPool.commonPool();
+  		return computeDirectionsBatch(routes, headings, pool, 4 * pool.getParallelism(), null);
+  	}
+
+
+  	/**
+     * Gives directions for following many Routes, formatting them in
+     * parallel on executor.
+     * <p>
+     * Every route is formatted by its own task, and at most maxInFlight
+     * tasks are submitted to executor and not yet finished at any time:
+     * when that many are, the calling thread waits for one to finish before
+     * submitting the next. A batch therefore never floods a shared executor
+     * with work, and the calling thread slows down to the rate the executor
+     * keeps up with. Since a RouteFormatter keeps no state between calls,
+     * the tasks share nothing but the routes and the result array.
+     * @requires routes != null && headings != null && routes does not
+     * 			contain null && routes.size() == headings.length &&
+     * 			0 <= headings[i] < 360 for every i && executor != null &&
+     * 			maxInFlight > 0 && the calling thread is not a thread of
+     * 			executor
+     * @modifies metrics
+     * @effects records the routes and the batch in metrics, unless it is
+     * 			null, whether the batch succeeds or fails.
+     * @return a list whose i-th element is
+     * 		   <tt>computeDirections(routes.get(i), headings[i])</tt>.
+     * @throws RuntimeException the first exception or error thrown by
+     * 		   formatting a route, or by executor when it rejects a route,
+     * 		   after the routes already submitted have finished. Checked
+     * 		   exceptions are wrapped in a CompletionException.
+     * @throws Error the first error thrown by formatting a route, such as
+     * 		   an AssertionError of a representation invariant, likewise.
+     * @throws CancellationException if the calling thread is interrupted
+     * 		   while waiting; its interrupt status is set again, and routes
+     * 		   already submitted may still be formatted afterwards.
+     **/
+  	public List<String> computeDirectionsBatch(List<Route> routes, double[] headings,
+  			Executor executor, int maxInFlight, BatchMetrics metrics) {
+  		long startTime = System.nanoTime();
+  		int count = routes.size();
+  		String[] directions = new String[count];
+  		Semaphore inFlight = new Semaphore(maxInFlight);
+  		AtomicReference<Throwable> failure = new AtomicReference<>();
+  		try {
+  			for (int i = 0; i < count && failure.get() == null; i++) {
+  				inFlight.acquire();
+  				Route route = routes.get(i);
+  				double heading = headings[i];
+  				int index = i;
+  				if (metrics != null) {
+  					metrics.routeQueued();
+  				}
+  				Runnable task = () -> {
+  					try {
+  						if (metrics != null) {
+  							metrics.routeStarted();
+  						}
+  						directions[index] = computeDirections(route, heading);
+  						if (metrics != null) {
+  							metrics.routeFormatted();
+  						}
+  					} catch (Throwable e) {
+  						// errors too, or the route would silently be left null.
+  						failure.compareAndSet(null, e);
+  					} finally {
+  						inFlight.release();
+  					}
+  				};
+  				try {
+  					executor.execute(task);
+  				} catch (RuntimeException e) {
+  					// the task will never run and return its permit.
+  					inFlight.release();
+  					if (metrics != null) {
+  						metrics.routeStarted();
+  					}
+  					failure.compareAndSet(null, e);
+  				}
+  			}
+  			// once every permit is back, every submitted route has finished.
+  			inFlight.acquire(maxInFlight);
+  		} catch (InterruptedException e) {
+  			Thread.currentThread().interrupt();
+  			throw new CancellationException("interrupted while formatting a batch");
+  		} finally {
+  			// failed batches too, or their routes would count without their time.
+  			if (metrics != null) {
+  				metrics.batchFinished(System.nanoTime() - startTime);
+  			}
+  		}
+  		Throwable thrown = failure.get();
+  		if (thrown instanceof RuntimeException) {
+  			throw (RuntimeException)thrown;
+  		}
+  		if (thrown instanceof Error) {
+  			throw (Error)thrown;
+  		}
+  		if (thrown != null) {
+  			throw new CompletionException(thrown);
+  		}
+  		return Arrays.asList(directions);
   	}
 
 
@@ -51,6 +203,59 @@ public abstract class RouteFormatter {
   	public abstract String computeLine(GeoFeature geoFeature, double origHeading);
 
 
+  	/**
+     * Appends a single line of a multi-line directions String that
+     * represents the instructions for traversing a single geographic
+     * feature to out. Subclasses should override this method to write
+     * directly into out; the default appends the result of computeLine().
+     * @requires geoFeature != null && out != null
+     * @param out the destination of the line.
+     * @param geoFeature the geographical feature to traverse.
+   	 * @param origHeading the initial heading.
+     * @effects appends to out the String returned by
+     * 			<tt>computeLine(geoFeature, origHeading)</tt>.
+     * @throws IOException if out throws IOException.
+     */
+  	public void appendLine(Appendable out, GeoFeature geoFeature, double origHeading)
+  			throws IOException {
+  		out.append(computeLine(geoFeature, origHeading));
+  	}
+
+
+  	/**
+     * Returns the line that appendLine() appends for geoFeature, for
+     * subclasses that implement computeLine() in terms of appendLine().
+     * @requires geoFeature != null
+     * @param geoFeature the geographical feature to traverse.
+   	 * @param origHeading the initial heading.
+     * @return the String appended by
+     * 		   <tt>appendLine(out, geoFeature, origHeading)</tt>.
+     */
+  	protected String lineToString(GeoFeature geoFeature, double origHeading) {
+  		StringBuilder line = new StringBuilder();
+  		try {
+  			appendLine(line, geoFeature, origHeading);
+  		} catch (IOException e) {
+  			// a StringBuilder never throws IOException.
+  			throw new UncheckedIOException(e);
+  		}
+  		return line.toString();
+  	}
+
+
+  	/**
+     * Computes directions to turn based on the heading change, as
+     * StepFormatter.computeTurn() for subclasses that are StepFormatters,
+     * so that the modes of a CompositeRouteFormatter turn as they do.
+     * @requires 0 <= origHeading < 360 &&
+     *           0 <= newHeading < 360
+     * @return <tt>getTurnString(origHeading, newHeading)</tt>.
+     */
+  	public String computeTurn(double origHeading, double newHeading) {
+  		return getTurnString(origHeading, newHeading);
+  	}
+
+
   	/**
      * Computes directions to turn based on the heading change.
      * @requires 0 <= oldHeading < 360 &&
@@ -71,28 +276,85 @@ public abstract class RouteFormatter {
      * and likewise for left turns.
      */
   	protected String getTurnString(double origHeading, double newHeading) {
-  	    String direction="";
-  	    String ans = "";
-  	    if(newHeading<=180)
-  	        direction="right";
-  	    else
-  	        direction="left";
-
-  		double zavit = Math.min((origHeading-newHeading)<0?origHeading-newHeading
-                +360:origHeading-newHeading, (newHeading-origHeading)<0?newHeading-origHeading
-                +360:newHeading-origHeading);
-                //(newHeading -origHeading)%360;
-            if(zavit<10)
-                ans = "Continue";
-            else if(zavit<60)
-                ans = "Turn slight "+direction;
-            else if(zavit<120)
-                ans = "Turn " +direction;
-            else if(zavit<179)
-                ans = "Turn sharp "+direction;
-            else
-                ans = "U-turn";
-            return ans;
+  		return turnString(origHeading, newHeading);
+  	}
+
+
+  	/**
+     * Computes directions to turn based on the heading change, like
+     * getTurnString(), for callers that have no RouteFormatter.
+     * @requires 0 <= oldHeading < 360 &&
+     *           0 <= newHeading < 360
+     * @return the String returned by
+     * 		   <tt>getTurnString(origHeading, newHeading)</tt>.
+     */
+  	static String turnString(double origHeading, double newHeading) {
+  	    // the strings are constants so that no String is built per segment.
+  	    boolean right = newHeading<=180;
+
+  	    switch (TurnClass.of(origHeading, newHeading)) {
+  	    case CONTINUE:
+  	        return "Continue";
+  	    case SLIGHT:
+  	        return right ? "Turn slight right" : "Turn slight left";
+  	    case TURN:
+  	        return right ? "Turn right" : "Turn left";
+  	    case SHARP:
+  	        return right ? "Turn sharp right" : "Turn sharp left";
+  	    default:
+  	        return "U-turn";
+  	    }
+  	}
+
+
+  	/**
+     * Appends length, rounded to tenth-of-a-kilometer precision, to out.
+     * The digits are written directly into out, so no objects are created.
+     * @requires out != null && length >= 0
+     * @param out the destination of the length.
+     * @param length the length to append, in kilometers.
+     * @effects appends to out the same text as
+     * 			<tt>Double.valueOf(new DecimalFormat("#.#").format(length))</tt>,
+     * 			e.g. "0.7", "1.0" or "12.3".
+     * @throws IOException if out throws IOException.
+     */
+  	protected static void appendTenths(Appendable out, double length) throws IOException {
+  		if (!(length < MAX_FIXED_POINT_LENGTH)) {
+  			// Double.toString switches to scientific notation up there.
+  			out.append(String.valueOf(Double.valueOf(new DecimalFormat("#.#").format(length))));
+  			return;
+  		}
+  		// DecimalFormat rounds the exact value of length half-even. fma()
+  		// compares length * 10 with the rounding midpoint without rounding
+  		// the product first, so ties and near-ties round the same way.
+  		long tenths = (long)Math.floor(length * 10);
+  		double fromMidpoint = Math.fma(length, 10, -(tenths + 0.5));
+  		if (fromMidpoint > 0 || (fromMidpoint == 0 && (tenths & 1) == 1)) {
+  			tenths++;
+  		}
+  		appendDigits(out, tenths / 10);
+  		out.append('.');
+  		out.append((char)('0' + tenths % 10));
+  	}
+
+
+  	/**
+     * Appends the decimal digits of value to out, without creating any
+     * objects.
+     * @requires out != null && value >= 0
+     * @param out the destination of the digits.
+     * @param value the number to append.
+     * @effects appends to out the same text as <tt>String.valueOf(value)</tt>.
+     * @throws IOException if out throws IOException.
+     */
+  	protected static void appendDigits(Appendable out, long value) throws IOException {
+  		long divisor = 1;
+  		while (value / divisor >= 10) {
+  			divisor *= 10;
+  		}
+  		for (; divisor > 0; divisor /= 10) {
+  			out.append((char)('0' + (value / divisor) % 10));
+  		}
   	}
 
 }
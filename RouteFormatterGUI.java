@@ -15,7 +15,10 @@ public class RouteFormatterGUI extends JPanel {
 
 	private static final long serialVersionUID = 1L;
 
-	private Route route = null;				// Route shown in this
+	// the Route shown in this, with its walking and driving directions,
+	// which are updated one line at a time as segments are added.
+	private final IncrementalDirections directions =
+		new IncrementalDirections(0, new WalkingRouteFormatter(), new DrivingRouteFormatter());
 
 	private GeoSegmentsDialog dlgSegments;	// secondary window
 
@@ -138,21 +141,18 @@ public class RouteFormatterGUI extends JPanel {
 	 * @effects Add new segment to the end of the route shown by this as
 	 * 			defined by Route.addSegment(). In addition, updates the
 	 * 			walking direction and the driving direction of the GUI
-	 * 			with the return value of
-	 * 			RouteDirection.computeDirections(this.route,0)
+	 * 			to the return value of
+	 * 			RouteDirection.computeDirections(this.route,0), by appending
+	 * 			the lines of the new segment.
 	 */
 	public void addSegment(GeoSegment segment) {
 		DefaultListModel<GeoSegment> model =
 				(DefaultListModel<GeoSegment>)(this.lstSegments.getModel());
-		if (route == null) {
-			route = new Route(segment);
-		} else {
-			route = route.addSegment(segment);
-		}
-		txtWalkingDirections
-			.setText(new WalkingRouteFormatter().computeDirections(route, 0)); 
-		txtDrivingDirections
-			.setText(new DrivingRouteFormatter().computeDirections(route, 0)); 
+		directions.addSegment(segment);
+		// the lines of the segments already shown never change.
+		int last = directions.getSegmentCount() - 1;
+		txtWalkingDirections.append(directions.getLine(0, last));
+		txtDrivingDirections.append(directions.getLine(1, last));
 		model.addElement(segment);
 	}
 
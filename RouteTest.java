@@ -0,0 +1,151 @@
+package homework1;
+
+import java.util.Iterator;
+
+public class RouteTest {
+
+	private static final double tolerance = 0.01;
+
+	private GeoPoint[] points;
+	private GeoSegment[] segments;
+
+
+  	public RouteTest() {
+  		points = ExampleGeoSegments.points;
+  		segments = ExampleGeoSegments.segments;
+  	}
+
+
+  	boolean same(double x, double y) {
+  		return ((y >= x-tolerance) && (y <= x+tolerance));
+  	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	private static int count(Iterator<?> it) {
+		int count = 0;
+		while (it.hasNext()) {
+			it.next();
+			count++;
+		}
+		return count;
+	}
+
+
+  	public void test() {
+  		// Hankin Road -> Trumpeldor Avenue -> Trumpeldor Avenue -> Hagalil
+  		Route r1 = new Route(segments[0]);
+  		Route r2 = r1.addSegment(segments[1]);
+  		Route r3 = r2.addSegment(segments[2]);
+  		Route r4 = r3.addSegment(segments[3]);
+
+  		show("addSegment()");
+  		show("Segment with a new name starts a new feature",
+  			count(r2.getGeoFeatures()) == 2);
+  		show("Segment with the same name extends the last feature",
+  			count(r3.getGeoFeatures()) == 2 && count(r3.getGeoSegments()) == 3);
+  		show("getEnd() is the end of the last segment",
+  			r4.getEnd().equals(points[4]));
+  		show("Length is the sum of the segment lengths",
+  			same(r4.getLength(), segments[0].getLength() + segments[1].getLength() +
+  					segments[2].getLength() + segments[3].getLength()));
+
+  		show("getSegmentCount(), lengthBetween() & distanceAlongRouteAt()");
+  		show("Segment count", r4.getSegmentCount() == 4);
+  		show("Length between segments",
+  			same(r4.lengthBetween(1, 3), segments[1].getLength() + segments[2].getLength()));
+  		show("Distance along route at the start is 0", r4.distanceAlongRouteAt(0) == 0);
+  		show("Distance along route at a segment",
+  			same(r4.distanceAlongRouteAt(2), segments[0].getLength() + segments[1].getLength()));
+  		show("Distance along route after the last segment is the length",
+  			r4.distanceAlongRouteAt(4) == r4.getLength());
+
+  		show("segmentAtDistance(), pointAtDistance() & pointsAtDistances()");
+  		double firstLength = segments[0].getLength();
+  		show("Segment at the start", r4.segmentAtDistance(0).equals(segments[0]));
+  		show("Segment just after the first one",
+  			r4.segmentIndexAtDistance(firstLength + 0.001) == 1);
+  		show("Segment past the end is the last one",
+  			r4.segmentAtDistance(r4.getLength() + 1).equals(segments[3]));
+  		show("Point at the start", r4.pointAtDistance(-1).equals(points[0]));
+  		show("Point at the end of a segment",
+  			r4.pointAtDistance(firstLength).equals(points[1]));
+  		show("Point past the end", r4.pointAtDistance(r4.getLength() + 1).equals(points[4]));
+  		GeoPoint middle = r4.pointAtDistance(firstLength / 2);
+  		show("Point in the middle of a segment",
+  			same(points[0].distanceTo(middle), firstLength / 2) &&
+  			same(middle.distanceTo(points[1]), firstLength / 2));
+  		double[] distances = { -1, 0, firstLength / 2, firstLength, 0.5, r4.getLength() };
+  		GeoPoint[] located = r4.pointsAtDistances(distances);
+  		boolean allSame = located.length == distances.length;
+  		for (int i = 0; allSame && i < distances.length; i++) {
+  			allSame = located[i].equals(r4.pointAtDistance(distances[i]));
+  		}
+  		show("Bulk lookup agrees with single lookups", allSame);
+
+  		show("immutability");
+  		show("Older routes keep their features",
+  			count(r1.getGeoFeatures()) == 1 && count(r2.getGeoSegments()) == 2 &&
+  			count(r3.getGeoFeatures()) == 2);
+  		show("Older routes keep their end",
+  			r1.getEnd().equals(points[1]) && r2.getEnd().equals(points[2]));
+
+  		Route branch = r2.addSegment(segments[2]);
+  		Route branch2 = r3.addSegment(new GeoSegment("Hanita", points[3], points[5]));
+  		show("Appending to an older route again gives an equal route",
+  			branch.equals(r3));
+  		show("Branching off a route does not change its other extension",
+  			count(r4.getGeoFeatures()) == 3 && r4.getEnd().equals(points[4]) &&
+  			count(branch2.getGeoFeatures()) == 3 && branch2.getEnd().equals(points[5]));
+
+  		Route longRoute = r1;
+  		GeoSegment there = new GeoSegment("Back and forth", points[1], points[0]);
+  		GeoSegment back = there.reverse();
+  		for (int i = 0; i < 100000; i++) {
+  			longRoute = longRoute.addSegment(i % 2 == 0 ? there : back);
+  		}
+  		show("Building a long route one segment at a time",
+  			count(longRoute.getGeoSegments()) == 100001 &&
+  			count(longRoute.getGeoFeatures()) == 2);
+
+  		Iterator<GeoFeature> features = r4.getGeoFeatures();
+  		features.next();
+  		boolean removed = true;
+  		try {
+  			features.remove();
+  		} catch (UnsupportedOperationException e) {
+  			removed = false;
+  		}
+  		show("Features cannot be removed through getGeoFeatures()", !removed);
+
+  		show("segments() & features()");
+  		show("segments() has the segments of getGeoSegments()",
+  			longRoute.segments().count() == count(longRoute.getGeoSegments()));
+  		show("Parallel segments() sum up to the length",
+  			same(longRoute.segments().parallel().mapToDouble(GeoSegment::getLength).sum(),
+  				 longRoute.getLength()));
+  		show("features() has the features of getGeoFeatures()",
+  			r4.features().map(GeoFeature::getName).reduce("", String::concat)
+  				.equals("Hankin RoadTrumpeldor AvenueHagalil"));
+  	}
+
+
+	public static void main(String[] args) {
+		RouteTest routeTest = new RouteTest();
+		routeTest.test();
+	}
+}
@@ -0,0 +1,427 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A SegmentGridIndex is a spatial index of the segments of a SegmentStore,
+ * for finding the segments nearest to a location or inside an area without
+ * scanning them all. SegmentGridIndexes are immutable; they do not see
+ * segments added to the store after they are built.
+ * <p>
+ * The index covers the bounding box of the store's points with a uniform
+ * grid of cells that are about square on the ground, sized to hold a few
+ * segments each. Every segment is listed in every cell its bounding box
+ * overlaps, and the lists are kept in compressed sparse row form. All
+ * coordinates are ints in millionths of degrees, as in GeoPoint.
+ * <p>
+ * Distances are measured with the flat-earth projection of
+ * GeoPoint.distanceTo() (KM_PER_DEGREE_LATITUDE and KM_PER_DEGREE_LONGITUDE),
+ * from a location to the nearest point of a segment. Searches compare
+ * squared distances, so they never take a square root. A nearest-segment
+ * search examines the cells in growing square rings around the location,
+ * and stops once no cell outside the rings can hold anything nearer.
+ * <p>
+ * A segment listed in several cells is found once per query without any
+ * per-segment scratch state, so queries allocate only their results and
+ * a SegmentGridIndex may be used by any number of threads at once.
+ **/
+public class SegmentGridIndex {
+
+	// the average number of segments per cell the grid is sized for.
+	private static final int SEGMENTS_PER_CELL = 2;
+
+	private final SegmentStore store;
+
+	// the endpoints of every segment, copied from the store: segment s goes
+	// from (coordinates[4s], coordinates[4s+1]) to (coordinates[4s+2], coordinates[4s+3]).
+	private final int[] coordinates;
+
+	// the grid: cell (row, column) covers latitudes from
+	// minLatitude + row * cellHeight and longitudes from
+	// minLongitude + column * cellWidth, and lists the segments
+	// cellSegments[i] for cellStart[c] <= i < cellStart[c + 1], where
+	// c = row * columns + column.
+	private final int minLatitude;
+	private final int minLongitude;
+	private final int cellHeight;
+	private final int cellWidth;
+	private final int rows;
+	private final int columns;
+	private final int[] cellStart;
+	private final int[] cellSegments;
+
+	// Abstraction function: a SegmentGridIndex indexes the segments of store.
+	//
+	// Representation invariant: coordinates.length = 4 * segmentCount &&
+	// cellHeight, cellWidth, rows, columns > 0 &&
+	// cellStart.length = rows * columns + 1 && cellStart is non-decreasing &&
+	// every segment is listed in every cell its bounding box overlaps.
+
+
+	/**
+	 * Constructs a new SegmentGridIndex.
+	 * @requires store != null
+	 * @effects Constructs a new SegmentGridIndex of the segments of store.
+	 **/
+	public SegmentGridIndex(SegmentStore store) {
+		this.store = store;
+		int segmentCount = store.getSegmentCount();
+		coordinates = new int[4 * segmentCount];
+		int minLat = Integer.MAX_VALUE, maxLat = Integer.MIN_VALUE;
+		int minLon = Integer.MAX_VALUE, maxLon = Integer.MIN_VALUE;
+		for (int s = 0; s < segmentCount; s++) {
+			int p1 = store.getP1Id(s);
+			int p2 = store.getP2Id(s);
+			coordinates[4 * s] = store.getLatitude(p1);
+			coordinates[4 * s + 1] = store.getLongitude(p1);
+			coordinates[4 * s + 2] = store.getLatitude(p2);
+			coordinates[4 * s + 3] = store.getLongitude(p2);
+			minLat = Math.min(minLat, Math.min(coordinates[4 * s], coordinates[4 * s + 2]));
+			maxLat = Math.max(maxLat, Math.max(coordinates[4 * s], coordinates[4 * s + 2]));
+			minLon = Math.min(minLon, Math.min(coordinates[4 * s + 1], coordinates[4 * s + 3]));
+			maxLon = Math.max(maxLon, Math.max(coordinates[4 * s + 1], coordinates[4 * s + 3]));
+		}
+		if (segmentCount == 0) {
+			minLat = maxLat = minLon = maxLon = 0;
+		}
+
+		// square cells on the ground, about SEGMENTS_PER_CELL segments each.
+		long latitudeSpan = (long)maxLat - minLat + 1;
+		long longitudeSpan = (long)maxLon - minLon + 1;
+		double heightKm = latitudeSpan * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double widthKm = longitudeSpan * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double cellCount = Math.max(1, segmentCount / SEGMENTS_PER_CELL);
+		double cellKm = Math.sqrt(heightKm * widthKm / cellCount);
+		int gridRows = (int)Math.max(1, Math.min(cellCount, Math.ceil(heightKm / cellKm)));
+		int gridColumns = (int)Math.max(1, Math.min(cellCount / gridRows, Math.ceil(widthKm / cellKm)));
+		minLatitude = minLat;
+		minLongitude = minLon;
+		cellHeight = (int)((latitudeSpan + gridRows - 1) / gridRows);
+		cellWidth = (int)((longitudeSpan + gridColumns - 1) / gridColumns);
+		rows = (int)((latitudeSpan + cellHeight - 1) / cellHeight);
+		columns = (int)((longitudeSpan + cellWidth - 1) / cellWidth);
+
+		// counting sort of the segments into the cells they overlap.
+		cellStart = new int[rows * columns + 1];
+		for (int s = 0; s < segmentCount; s++) {
+			forEachCell(s, (cell, segment) -> cellStart[cell + 1]++);
+		}
+		for (int c = 0; c < rows * columns; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		cellSegments = new int[cellStart[rows * columns]];
+		int[] next = Arrays.copyOf(cellStart, rows * columns);
+		for (int s = 0; s < segmentCount; s++) {
+			forEachCell(s, (cell, segment) -> cellSegments[next[cell]++] = segment);
+		}
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Returns the store this indexes.
+	 * @return the store this indexes.
+	 **/
+	public SegmentStore getStore() {
+		return store;
+	}
+
+
+	/**
+	 * Finds the segment nearest to a point.
+	 * @requires point != null
+	 * @return the id of a segment of the store at the smallest distance
+	 *         from point, or -1 if the store has no segments.
+	 **/
+	public int nearestSegment(GeoPoint point) {
+		return nearestSegment(point.getLatitude(), point.getLongitude());
+	}
+
+
+	/**
+	 * Finds the segment nearest to a location.
+	 * @requires latitude and longitude, in millionths of degrees, are those
+	 *           of a valid GeoPoint
+	 * @return the id of a segment of the store at the smallest distance
+	 *         from (latitude, longitude), or -1 if the store has no segments.
+	 **/
+	public int nearestSegment(int latitude, int longitude) {
+		if (cellSegments.length == 0) {
+			return -1;
+		}
+		int row = clamp(Math.floorDiv(latitude - minLatitude, cellHeight), rows);
+		int column = clamp(Math.floorDiv(longitude - minLongitude, cellWidth), columns);
+		int nearest = -1;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+		for (int ring = 0; ; ring++) {
+			for (int r = row - ring; r <= row + ring; r++) {
+				if (r < 0 || r >= rows) {
+					continue;
+				}
+				boolean edgeRow = r == row - ring || r == row + ring;
+				for (int c = column - ring; c <= column + ring; c += edgeRow ? 1 : 2 * ring) {
+					if (c < 0 || c >= columns) {
+						continue;
+					}
+					int cell = r * columns + c;
+					for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+						int s = cellSegments[i];
+						double distance = squaredDistance(latitude, longitude, s);
+						if (distance < nearestDistance || (distance == nearestDistance && s < nearest)) {
+							nearest = s;
+							nearestDistance = distance;
+						}
+					}
+				}
+			}
+			if (squaredDistanceOutside(latitude, longitude, row, column, ring) > nearestDistance) {
+				return nearest;
+			}
+		}
+	}
+
+
+	/**
+	 * Finds the segments nearest to a point.
+	 * @requires point != null && k >= 0
+	 * @return the ids of the min(k, segment count) segments of the store
+	 *         nearest to point, nearest first, ties broken by smaller id.
+	 **/
+	public int[] kNearest(GeoPoint point, int k) {
+		int latitude = point.getLatitude();
+		int longitude = point.getLongitude();
+		int count = Math.min(k, coordinates.length / 4);
+		int[] nearest = new int[count];
+		double[] distances = new double[count];
+		if (count == 0) {
+			return nearest;
+		}
+		int found = 0;
+		int row = clamp(Math.floorDiv(latitude - minLatitude, cellHeight), rows);
+		int column = clamp(Math.floorDiv(longitude - minLongitude, cellWidth), columns);
+		for (int ring = 0; ; ring++) {
+			for (int r = row - ring; r <= row + ring; r++) {
+				if (r < 0 || r >= rows) {
+					continue;
+				}
+				boolean edgeRow = r == row - ring || r == row + ring;
+				for (int c = column - ring; c <= column + ring; c += edgeRow ? 1 : 2 * ring) {
+					if (c < 0 || c >= columns) {
+						continue;
+					}
+					int cell = r * columns + c;
+					for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+						int s = cellSegments[i];
+						double distance = squaredDistance(latitude, longitude, s);
+						// the place of s in the nearest-so-far, sorted by
+						// distance, then id.
+						int position = found;
+						while (position > 0 && (distances[position - 1] > distance ||
+								(distances[position - 1] == distance && nearest[position - 1] > s))) {
+							position--;
+						}
+						// a segment seen in an earlier cell has the same
+						// distance, so it is either right before its place
+						// or was dropped as farther than the k nearest.
+						if (position == count || (position > 0 && nearest[position - 1] == s)) {
+							continue;
+						}
+						int moved = Math.min(found, count - 1) - position;
+						System.arraycopy(distances, position, distances, position + 1, moved);
+						System.arraycopy(nearest, position, nearest, position + 1, moved);
+						distances[position] = distance;
+						nearest[position] = s;
+						found = Math.min(found + 1, count);
+					}
+				}
+			}
+			if (found == count &&
+					squaredDistanceOutside(latitude, longitude, row, column, ring) > distances[count - 1]) {
+				return nearest;
+			}
+		}
+	}
+
+
+	/**
+	 * Finds the segments in an area.
+	 * @requires minLatitude <= maxLatitude && minLongitude <= maxLongitude
+	 * @return the ids, in ascending order, of the segments of the store
+	 *         whose bounding boxes overlap the box from (minLatitude,
+	 *         minLongitude) to (maxLatitude, maxLongitude), in millionths of
+	 *         degrees, edges included.
+	 **/
+	public int[] segmentsInBox(int minLatitude, int minLongitude, int maxLatitude, int maxLongitude) {
+		int firstRow = clamp(Math.floorDiv(minLatitude - this.minLatitude, cellHeight), rows);
+		int lastRow = clamp(Math.floorDiv(maxLatitude - this.minLatitude, cellHeight), rows);
+		int firstColumn = clamp(Math.floorDiv(minLongitude - this.minLongitude, cellWidth), columns);
+		int lastColumn = clamp(Math.floorDiv(maxLongitude - this.minLongitude, cellWidth), columns);
+		int[] found = new int[16];
+		int count = 0;
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				int cell = r * columns + c;
+				for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+					int s = cellSegments[i];
+					int lat1 = coordinates[4 * s], lon1 = coordinates[4 * s + 1];
+					int lat2 = coordinates[4 * s + 2], lon2 = coordinates[4 * s + 3];
+					// report s only in the first cell of the range it is
+					// listed in, so it is reported once.
+					if (r != Math.max(firstRow, (Math.min(lat1, lat2) - this.minLatitude) / cellHeight) ||
+							c != Math.max(firstColumn, (Math.min(lon1, lon2) - this.minLongitude) / cellWidth)) {
+						continue;
+					}
+					if (Math.max(lat1, lat2) < minLatitude || Math.min(lat1, lat2) > maxLatitude ||
+							Math.max(lon1, lon2) < minLongitude || Math.min(lon1, lon2) > maxLongitude) {
+						continue;
+					}
+					if (count == found.length) {
+						found = Arrays.copyOf(found, count * 2);
+					}
+					found[count++] = s;
+				}
+			}
+		}
+		int[] segments = Arrays.copyOf(found, count);
+		Arrays.sort(segments);
+		return segments;
+	}
+
+
+	/**
+	 * Returns the distance from a point to a segment.
+	 * @requires point != null && 0 <= segmentId < getStore().getSegmentCount()
+	 * @return the distance, in kilometers, from point to the nearest point
+	 *         of segments[segmentId], with the projection of
+	 *         GeoPoint.distanceTo().
+	 **/
+	public double distance(GeoPoint point, int segmentId) {
+		return Math.sqrt(squaredDistance(point.getLatitude(), point.getLongitude(), segmentId)) /
+			   GeoPoint.MILLION;
+	}
+
+
+	/**
+	 * @effects returns the squared projected distance, in millionths of
+	 *          kilometers squared, from (latitude, longitude) to the nearest
+	 *          point of segment s.
+	 **/
+	private double squaredDistance(int latitude, int longitude, int s) {
+		// projected coordinates relative to the first endpoint.
+		double y2 = ((long)coordinates[4 * s + 2] - coordinates[4 * s]) * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double x2 = ((long)coordinates[4 * s + 3] - coordinates[4 * s + 1]) * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double y = ((long)latitude - coordinates[4 * s]) * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double x = ((long)longitude - coordinates[4 * s + 1]) * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double lengthSquared = x2 * x2 + y2 * y2;
+		double t = lengthSquared == 0 ? 0 : (x * x2 + y * y2) / lengthSquared;
+		t = Math.max(0, Math.min(1, t));
+		double dx = x - t * x2;
+		double dy = y - t * y2;
+		return dx * dx + dy * dy;
+	}
+
+
+	/**
+	 * @effects returns the squared projected distance from (latitude,
+	 *          longitude) to the nearest point of the grid outside the
+	 *          square of cells within ring rings of (row, column), or
+	 *          infinity if the square covers the whole grid.
+	 **/
+	private double squaredDistanceOutside(int latitude, int longitude, int row, int column, int ring) {
+		int firstRow = row - ring, lastRow = row + ring;
+		int firstColumn = column - ring, lastColumn = column + ring;
+		// the square's bounds, and the grid's.
+		long squareMinLat = minLatitude + (long)firstRow * cellHeight;
+		long squareMaxLat = minLatitude + (long)(lastRow + 1) * cellHeight;
+		long squareMinLon = minLongitude + (long)firstColumn * cellWidth;
+		long squareMaxLon = minLongitude + (long)(lastColumn + 1) * cellWidth;
+		long gridMaxLat = minLatitude + (long)rows * cellHeight;
+		long gridMaxLon = minLongitude + (long)columns * cellWidth;
+
+		// the rest of the grid is made of up to four bands around the square.
+		double distance = Double.POSITIVE_INFINITY;
+		if (firstRow > 0) {
+			distance = Math.min(distance, squaredDistanceToBox(latitude, longitude,
+					minLatitude, minLongitude, squareMinLat, gridMaxLon));
+		}
+		if (lastRow < rows - 1) {
+			distance = Math.min(distance, squaredDistanceToBox(latitude, longitude,
+					squareMaxLat, minLongitude, gridMaxLat, gridMaxLon));
+		}
+		if (firstColumn > 0) {
+			distance = Math.min(distance, squaredDistanceToBox(latitude, longitude,
+					minLatitude, minLongitude, gridMaxLat, squareMinLon));
+		}
+		if (lastColumn < columns - 1) {
+			distance = Math.min(distance, squaredDistanceToBox(latitude, longitude,
+					minLatitude, squareMaxLon, gridMaxLat, gridMaxLon));
+		}
+		return distance;
+	}
+
+
+	/**
+	 * @effects returns the squared projected distance from (latitude,
+	 *          longitude) to the box from (minLat, minLon) to (maxLat, maxLon).
+	 **/
+	private static double squaredDistanceToBox(int latitude, int longitude,
+											   long minLat, long minLon, long maxLat, long maxLon) {
+		long dLat = latitude < minLat ? minLat - latitude : latitude > maxLat ? latitude - maxLat : 0;
+		long dLon = longitude < minLon ? minLon - longitude : longitude > maxLon ? longitude - maxLon : 0;
+		double y = dLat * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double x = dLon * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		return x * x + y * y;
+	}
+
+
+	/**
+	 * @effects calls action with every cell the bounding box of segment s
+	 *          overlaps.
+	 **/
+	private void forEachCell(int s, CellAction action) {
+		int lat1 = coordinates[4 * s], lon1 = coordinates[4 * s + 1];
+		int lat2 = coordinates[4 * s + 2], lon2 = coordinates[4 * s + 3];
+		int firstRow = (Math.min(lat1, lat2) - minLatitude) / cellHeight;
+		int lastRow = (Math.max(lat1, lat2) - minLatitude) / cellHeight;
+		int firstColumn = (Math.min(lon1, lon2) - minLongitude) / cellWidth;
+		int lastColumn = (Math.max(lon1, lon2) - minLongitude) / cellWidth;
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				action.apply(r * columns + c, s);
+			}
+		}
+	}
+
+
+	/**
+	 * @effects returns value clamped to 0..count-1.
+	 **/
+	private static int clamp(int value, int count) {
+		return Math.max(0, Math.min(count - 1, value));
+	}
+
+
+	/**
+	 * A CellAction is done for a cell and a segment in it.
+	 **/
+	private interface CellAction {
+		void apply(int cell, int segment);
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		if (coordinates.length != 4 * store.getSegmentCount() || cellHeight <= 0 || cellWidth <= 0 ||
+				rows <= 0 || columns <= 0 || cellStart.length != rows * columns + 1) {
+			return false;
+		}
+		for (int c = 0; c < rows * columns; c++) {
+			if (cellStart[c] > cellStart[c + 1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,189 @@
+package homework1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A SegmentStore holds a large set of GeoPoints and GeoSegments in a
+ * compact, column-oriented form. Points, segments and segment names are
+ * identified by int ids, starting at 0.
+ * <p>
+ * A SegmentStore does not keep GeoPoint and GeoSegment objects. Instead it
+ * keeps, for every point, its latitude and longitude, and for every segment,
+ * the ids of its endpoints and of its name. Names are kept once each, in a
+ * dictionary. Subclasses decide where these columns are stored.
+ * <p>
+ * The primitive accessors (getLatitude(), getSegmentLength(), ...) read the
+ * columns directly and create no objects. getPoint() and getSegment() create
+ * short-lived GeoPoint and GeoSegment views of the stored data, so that Route
+ * and the formatters can be used with stored segments.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   points : sequence     // the points of the store, indexed by point id
+ *   segments : sequence   // the segments of the store, indexed by segment id
+ *   names : sequence      // the distinct segment names, indexed by name id
+ * </pre>
+ **/
+public abstract class SegmentStore {
+
+	/**
+	 * Returns the number of points in this.
+	 * @return the number of points in this.
+	 **/
+	public abstract int getPointCount();
+
+
+	/**
+	 * Returns the number of segments in this.
+	 * @return the number of segments in this.
+	 **/
+	public abstract int getSegmentCount();
+
+
+	/**
+	 * Returns the number of distinct segment names in this.
+	 * @return the number of distinct segment names in this.
+	 **/
+	public abstract int getNameCount();
+
+
+	/**
+	 * Returns the latitude of a point.
+	 * @requires 0 <= pointId < getPointCount()
+	 * @return the latitude of points[pointId] in millionths of degrees.
+	 **/
+	public abstract int getLatitude(int pointId);
+
+
+	/**
+	 * Returns the longitude of a point.
+	 * @requires 0 <= pointId < getPointCount()
+	 * @return the longitude of points[pointId] in millionths of degrees.
+	 **/
+	public abstract int getLongitude(int pointId);
+
+
+	/**
+	 * Returns the id of the first endpoint of a segment.
+	 * @requires 0 <= segmentId < getSegmentCount()
+	 * @return the id of segments[segmentId].p1.
+	 **/
+	public abstract int getP1Id(int segmentId);
+
+
+	/**
+	 * Returns the id of the second endpoint of a segment.
+	 * @requires 0 <= segmentId < getSegmentCount()
+	 * @return the id of segments[segmentId].p2.
+	 **/
+	public abstract int getP2Id(int segmentId);
+
+
+	/**
+	 * Returns the name id of a segment.
+	 * @requires 0 <= segmentId < getSegmentCount()
+	 * @return the id of segments[segmentId].name.
+	 **/
+	public abstract int getNameId(int segmentId);
+
+
+	/**
+	 * Returns a segment name.
+	 * @requires 0 <= nameId < getNameCount()
+	 * @return names[nameId].
+	 **/
+	public abstract String getName(int nameId);
+
+
+	/**
+	 * Returns the name of a segment.
+	 * @requires 0 <= segmentId < getSegmentCount()
+	 * @return segments[segmentId].name.
+	 **/
+	public String getSegmentName(int segmentId) {
+		return getName(getNameId(segmentId));
+	}
+
+
+	/**
+	 * Returns the length of a segment, without creating any objects.
+	 * @requires 0 <= segmentId < getSegmentCount()
+	 * @return getSegment(segmentId).getLength().
+	 **/
+	public double getSegmentLength(int segmentId) {
+		int p1 = getP1Id(segmentId);
+		int p2 = getP2Id(segmentId);
+		int latitude1 = getLatitude(p1);
+		int longitude1 = getLongitude(p1);
+		int latitude2 = getLatitude(p2);
+		int longitude2 = getLongitude(p2);
+		if (latitude1 == latitude2 && longitude1 == longitude2) {
+			return 0;
+		}
+		return GeoPoint.distance(latitude1, longitude1, latitude2, longitude2);
+	}
+
+
+	/**
+	 * Returns the heading of a segment, without creating any objects.
+	 * @requires 0 <= segmentId < getSegmentCount()
+	 * @return getSegment(segmentId).getHeading().
+	 **/
+	public double getSegmentHeading(int segmentId) {
+		int p1 = getP1Id(segmentId);
+		int p2 = getP2Id(segmentId);
+		int latitude1 = getLatitude(p1);
+		int longitude1 = getLongitude(p1);
+		int latitude2 = getLatitude(p2);
+		int longitude2 = getLongitude(p2);
+		if (latitude1 == latitude2 && longitude1 == longitude2) {
+			return 0;
+		}
+		return GeoPoint.heading(latitude1, longitude1, latitude2, longitude2);
+	}
+
+
+	/**
+	 * Returns a GeoPoint view of a point.
+	 * @requires 0 <= pointId < getPointCount()
+	 * @return a GeoPoint equal to points[pointId], from GeoPoint.of().
+	 **/
+	public GeoPoint getPoint(int pointId) {
+		return GeoPoint.of(getLatitude(pointId), getLongitude(pointId));
+	}
+
+
+	/**
+	 * Returns a GeoSegment view of a segment.
+	 * @requires 0 <= segmentId < getSegmentCount()
+	 * @return a new GeoSegment equal to segments[segmentId].
+	 **/
+	public GeoSegment getSegment(int segmentId) {
+		return new GeoSegment(getSegmentName(segmentId),
+							  getPoint(getP1Id(segmentId)), getPoint(getP2Id(segmentId)));
+	}
+
+
+	/**
+	 * Returns an Iterator of GeoSegment views of the segments of this. The
+	 * views are created as the Iterator advances.
+	 * @return an Iterator over getSegment(0), ..., getSegment(getSegmentCount() - 1).
+	 **/
+	public Iterator<GeoSegment> getGeoSegments() {
+		return new Iterator<GeoSegment>() {
+			private int next = 0;
+
+			public boolean hasNext() {
+				return next < getSegmentCount();
+			}
+
+			public GeoSegment next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getSegment(next++);
+			}
+		};
+	}
+}
@@ -0,0 +1,230 @@
+package homework1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SegmentStoreSnapshot reads and writes SegmentStores in a compact binary
+ * file format that can be memory-mapped and used as a SegmentStore as is.
+ * <p>
+ * map() maps the point and segment sections of a snapshot into memory and
+ * returns a DirectSegmentStore that reads them in place. Nothing is parsed
+ * but the name dictionary, and the operating system pages the rest in on
+ * demand, so mapping a snapshot takes about the same time whatever the size
+ * of the network.
+ * <p>
+ * A snapshot holds, all little-endian:
+ * <pre>
+ *   header   : magic (int), version (int), pointCount (int), segmentCount (int),
+ *              nameCount (int), reserved (int), namesOffset (long)
+ *   points   : pointCount records of latitude (int), longitude (int)
+ *   segments : segmentCount records of p1 id (int), p2 id (int), name id (int)
+ *   names    : nameCount records of byte length (int), UTF-8 bytes
+ * </pre>
+ * The points start right after the header, and the segments right after
+ * the points.
+ **/
+public final class SegmentStoreSnapshot {
+
+	/** The first int of every snapshot: "HW1S" in ASCII. **/
+	public static final int MAGIC = 0x53315748;
+
+	/** The version of the snapshot format written by write(). **/
+	public static final int VERSION = 1;
+
+	/** The number of bytes in the header of a snapshot. **/
+	public static final int HEADER_BYTES = 32;
+
+	// the size of the buffer write() fills before writing to the file.
+	private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+
+	private SegmentStoreSnapshot() {
+	}
+
+
+	/**
+	 * Writes a snapshot of a SegmentStore to a file.
+	 * @requires store != null && file != null
+	 * @modifies the file at file
+	 * @effects creates or replaces the file at file with a snapshot of
+	 *          store, such that map(file) holds the same points, segments
+	 *          and names with the same ids.
+	 * @throws IOException if the file cannot be written.
+	 **/
+	public static void write(SegmentStore store, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			int pointCount = store.getPointCount();
+			int segmentCount = store.getSegmentCount();
+			long namesOffset = HEADER_BYTES + (long)pointCount * DirectSegmentStore.POINT_BYTES +
+							   (long)segmentCount * DirectSegmentStore.SEGMENT_BYTES;
+
+			ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(pointCount).putInt(segmentCount)
+				  .putInt(store.getNameCount()).putInt(0).putLong(namesOffset);
+			for (int i = 0; i < pointCount; i++) {
+				buffer = ensureRemaining(channel, buffer, DirectSegmentStore.POINT_BYTES);
+				buffer.putInt(store.getLatitude(i)).putInt(store.getLongitude(i));
+			}
+			for (int i = 0; i < segmentCount; i++) {
+				buffer = ensureRemaining(channel, buffer, DirectSegmentStore.SEGMENT_BYTES);
+				buffer.putInt(store.getP1Id(i)).putInt(store.getP2Id(i)).putInt(store.getNameId(i));
+			}
+			for (int i = 0; i < store.getNameCount(); i++) {
+				byte[] name = store.getName(i).getBytes(StandardCharsets.UTF_8);
+				buffer = ensureRemaining(channel, buffer, 4 + name.length);
+				buffer.putInt(name.length).put(name);
+			}
+			flush(channel, buffer);
+		}
+	}
+
+
+	/**
+	 * Maps a snapshot into memory as a SegmentStore.
+	 * @requires file != null
+	 * @return a DirectSegmentStore that reads the points and segments of the
+	 *         snapshot at file directly from the mapped file.
+	 * @throws IOException if the file cannot be read or is not a snapshot
+	 *         written by write().
+	 **/
+	public static DirectSegmentStore map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, header, 0);
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				throw new IOException(file + " is not a segment store snapshot");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException(file + " has unsupported snapshot version " + version);
+			}
+			int pointCount = header.getInt();
+			int segmentCount = header.getInt();
+			int nameCount = header.getInt();
+			header.getInt();
+			long namesOffset = header.getLong();
+
+			long pointsOffset = HEADER_BYTES;
+			long segmentsOffset = pointsOffset + (long)pointCount * DirectSegmentStore.POINT_BYTES;
+			if (pointCount < 0 || segmentCount < 0 || nameCount < 0 ||
+					segmentsOffset + (long)segmentCount * DirectSegmentStore.SEGMENT_BYTES != namesOffset ||
+					namesOffset > channel.size()) {
+				throw new IOException(file + " is a corrupt segment store snapshot");
+			}
+
+			ByteBuffer[] pointChunks = mapChunks(channel, pointsOffset, pointCount,
+												 DirectSegmentStore.POINT_BYTES);
+			ByteBuffer[] segmentChunks = mapChunks(channel, segmentsOffset, segmentCount,
+												   DirectSegmentStore.SEGMENT_BYTES);
+			String[] names = readNames(channel, namesOffset, nameCount);
+			// the mappings stay valid after the channel is closed. The ids
+			// of the segments are not checked: that would read every page
+			// of the file, and mapping is meant to take the same time
+			// whatever the size of the network.
+			return new DirectSegmentStore(pointChunks, pointCount, segmentChunks, segmentCount, names);
+		}
+	}
+
+
+	/**
+	 * @effects returns read-only little-endian mappings of count records of
+	 *          recordBytes bytes each, starting at offset, split into chunks
+	 *          as DirectSegmentStore expects.
+	 **/
+	private static ByteBuffer[] mapChunks(FileChannel channel, long offset, int count,
+										  int recordBytes) throws IOException {
+		ByteBuffer[] chunks = new ByteBuffer[DirectSegmentStore.chunkCount(count)];
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			long chunkOffset = offset + ((long)chunk << DirectSegmentStore.CHUNK_SHIFT) * recordBytes;
+			long chunkBytes = (long)DirectSegmentStore.chunkLength(count, chunk) * recordBytes;
+			chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, chunkOffset, chunkBytes)
+								   .order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return chunks;
+	}
+
+
+	/**
+	 * @effects returns the nameCount names stored from offset on.
+	 * @throws IOException if the names do not fill the rest of the file
+	 *         exactly, as written by write().
+	 **/
+	private static String[] readNames(FileChannel channel, long offset, int nameCount)
+			throws IOException {
+		long namesBytes = channel.size() - offset;
+		// every name takes at least the 4 bytes of its length.
+		if (namesBytes > Integer.MAX_VALUE || nameCount > namesBytes / 4) {
+			throw new IOException("corrupt name section in segment store snapshot");
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int)namesBytes).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, buffer, offset);
+		buffer.flip();
+		String[] names = new String[nameCount];
+		for (int i = 0; i < nameCount; i++) {
+			int length = buffer.remaining() < 4 ? -1 : buffer.getInt();
+			if (length < 0 || length > buffer.remaining()) {
+				throw new IOException("corrupt name " + i + " in segment store snapshot");
+			}
+			byte[] name = new byte[length];
+			buffer.get(name);
+			names[i] = new String(name, StandardCharsets.UTF_8);
+		}
+		if (buffer.hasRemaining()) {
+			throw new IOException("unexpected data after the names of segment store snapshot");
+		}
+		return names;
+	}
+
+
+	/**
+	 * @effects fills buffer from channel, starting at position.
+	 * @throws IOException if the channel ends before buffer is full.
+	 **/
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("unexpected end of segment store snapshot");
+			}
+			position += read;
+		}
+	}
+
+
+	/**
+	 * @effects returns a buffer with room for bytes more bytes, writing the
+	 *          contents of buffer to channel first if needed.
+	 **/
+	private static ByteBuffer ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes)
+			throws IOException {
+		if (buffer.remaining() >= bytes) {
+			return buffer;
+		}
+		flush(channel, buffer);
+		if (buffer.capacity() < bytes) {
+			return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return buffer;
+	}
+
+
+	/**
+	 * @effects writes the contents of buffer to channel, and clears buffer.
+	 **/
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,344 @@
+package homework1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class SegmentStoreTest {
+
+	private static final double tolerance = 0.000001;
+
+	private GeoSegment[] segments;
+	private SegmentStore store;
+
+
+  	public SegmentStoreTest() {
+  		segments = ExampleGeoSegments.segments;
+  		store = new ArraySegmentStore(segments);
+  	}
+
+
+  	boolean same(double x, double y) {
+  		return ((y >= x-tolerance) && (y <= x+tolerance));
+  	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+  	public void test() {
+  		test(store);
+  		test(new DirectSegmentStore(store));
+
+  		try {
+  			Path file = Files.createTempFile("segments", ".snapshot");
+  			try {
+  				SegmentStoreSnapshot.write(store, file);
+  				test(SegmentStoreSnapshot.map(file));
+
+  				// corrupt name lengths and sections are IOExceptions.
+  				byte[] bytes = Files.readAllBytes(file);
+  				int namesOffset = (int)ByteBuffer.wrap(bytes, 24, 8).order(ByteOrder.LITTLE_ENDIAN).getLong();
+  				boolean rejected = true;
+  				for (int length: new int[] {-1, 1 << 30}) {
+  					byte[] corrupt = bytes.clone();
+  					ByteBuffer.wrap(corrupt, namesOffset, 4).order(ByteOrder.LITTLE_ENDIAN).putInt(length);
+  					rejected &= mapFails(file, corrupt);
+  				}
+  				rejected &= mapFails(file, Arrays.copyOf(bytes, bytes.length - 1));
+  				rejected &= mapFails(file, Arrays.copyOf(bytes, bytes.length + 1));
+  				show("Corrupt snapshot names throw IOException", rejected);
+  			} finally {
+  				Files.deleteIfExists(file);
+  			}
+  		} catch (IOException e) {
+  			show("Snapshot round trip failed: " + e, false);
+  		}
+  	}
+
+
+  	public void test(SegmentStore store) {
+  		show(store.getClass().getSimpleName());
+  		show("Shared endpoints are stored once",
+  			store.getPointCount() == ExampleGeoSegments.points.length);
+  		show("Names are stored once",
+  			store.getSegmentCount() == segments.length && store.getNameCount() == 9);
+
+  		boolean allEqual = true;
+  		boolean allLengths = true;
+  		boolean allHeadings = true;
+  		for (int i = 0; i < segments.length; i++) {
+  			allEqual &= store.getSegment(i).equals(segments[i]);
+  			allLengths &= same(store.getSegmentLength(i), segments[i].getLength());
+  			allHeadings &= same(store.getSegmentHeading(i), segments[i].getHeading());
+  		}
+  		show("Segment views equal the stored segments", allEqual);
+  		show("Segment lengths", allLengths);
+  		show("Segment headings", allHeadings);
+
+  		Iterator<GeoSegment> it = store.getGeoSegments();
+  		Route route = new Route(it.next());
+  		for (int i = 1; i < 5; i++) {
+  			route = route.addSegment(it.next());
+  		}
+  		Route expected = new Route(segments[0]);
+  		for (int i = 1; i < 5; i++) {
+  			expected = expected.addSegment(segments[i]);
+  		}
+  		show("Routes of segment views equal routes of the segments", route.equals(expected));
+  		show("Formatting routes of segment views",
+  			new DrivingRouteFormatter().computeDirections(route, 0).equals(
+  				new DrivingRouteFormatter().computeDirections(expected, 0)));
+  	}
+
+
+  	public void testGridIndex() {
+  		show("SegmentGridIndex");
+  		SegmentGridIndex example = new SegmentGridIndex(store);
+  		show("Snapping a segment's endpoint finds a segment through it",
+  			example.distance(ExampleGeoSegments.points[4],
+  							 example.nearestSegment(ExampleGeoSegments.points[4])) == 0);
+
+  		Random random = new Random(5);
+  		ArraySegmentStore randomStore = new ArraySegmentStore();
+  		for (int i = 0; i < 2000; i++) {
+  			int latitude = 32700000 + random.nextInt(100000);
+  			int longitude = 35000000 + random.nextInt(100000);
+  			int p1 = randomStore.addPoint(latitude, longitude);
+  			int p2 = randomStore.addPoint(latitude + random.nextInt(4000) - 2000,
+  										  longitude + random.nextInt(4000) - 2000);
+  			randomStore.addSegment("Street " + (i % 50), p1, p2);
+  		}
+  		SegmentGridIndex index = new SegmentGridIndex(randomStore);
+
+  		boolean nearest = true;
+  		boolean kNearest = true;
+  		for (int q = 0; q < 200; q++) {
+  			// some queries fall outside the indexed area.
+  			GeoPoint point = new GeoPoint(32680000 + random.nextInt(140000),
+  										  34980000 + random.nextInt(140000));
+  			int[] expected = bruteForceNearest(index, point);
+  			nearest &= index.nearestSegment(point) == expected[0];
+  			kNearest &= Arrays.equals(index.kNearest(point, 10), Arrays.copyOf(expected, 10));
+  		}
+  		show("Nearest segments match a linear scan", nearest);
+  		show("k nearest segments match a linear scan", kNearest);
+  		show("k larger than the number of segments",
+  			index.kNearest(new GeoPoint(32750000, 35050000), 5000).length == 2000);
+
+  		boolean inBox = true;
+  		for (int q = 0; q < 50; q++) {
+  			int minLatitude = 32700000 + random.nextInt(100000);
+  			int minLongitude = 35000000 + random.nextInt(100000);
+  			int maxLatitude = minLatitude + random.nextInt(20000);
+  			int maxLongitude = minLongitude + random.nextInt(20000);
+  			int count = 0;
+  			for (int s = 0; s < randomStore.getSegmentCount(); s++) {
+  				int lat1 = randomStore.getLatitude(randomStore.getP1Id(s));
+  				int lat2 = randomStore.getLatitude(randomStore.getP2Id(s));
+  				int lon1 = randomStore.getLongitude(randomStore.getP1Id(s));
+  				int lon2 = randomStore.getLongitude(randomStore.getP2Id(s));
+  				if (Math.max(lat1, lat2) >= minLatitude && Math.min(lat1, lat2) <= maxLatitude &&
+  						Math.max(lon1, lon2) >= minLongitude && Math.min(lon1, lon2) <= maxLongitude) {
+  					count++;
+  				}
+  			}
+  			inBox &= index.segmentsInBox(minLatitude, minLongitude, maxLatitude, maxLongitude).length == count;
+  		}
+  		show("Segments in boxes match a linear scan", inBox);
+  		int[] all = index.segmentsInBox(32600000, 34900000, 32900000, 35200000);
+  		show("A box around every cell finds every segment once",
+  			all.length == 2000 && all[0] == 0 && all[1999] == 1999);
+  		show("An empty store has no nearest segment",
+  			new SegmentGridIndex(new ArraySegmentStore()).nearestSegment(new GeoPoint(0, 0)) == -1);
+  	}
+
+
+  	public void testHilbertOrder() {
+  		show("SpaceFillingCurve");
+  		show("Morton keys interleave the coordinate bits",
+  			SpaceFillingCurve.mortonKey(GeoPoint.MIN_LATITUDE + 0b11, GeoPoint.MIN_LONGITUDE + 0b01) == 0b1011);
+
+  		// the first 4^k cells of the Hilbert curve fill the 2^k square at the origin.
+  		int[] cells = new int[256];
+  		boolean filled = true;
+  		for (int y = 0; y < 16; y++) {
+  			for (int x = 0; x < 16; x++) {
+  				long key = SpaceFillingCurve.hilbertKey(GeoPoint.MIN_LATITUDE + y, GeoPoint.MIN_LONGITUDE + x);
+  				filled &= key < 256;
+  				if (key < 256) {
+  					cells[(int)key] = y << 4 | x;
+  				}
+  			}
+  		}
+  		boolean adjacent = true;
+  		for (int key = 1; key < 256; key++) {
+  			int dy = Math.abs((cells[key] >> 4) - (cells[key - 1] >> 4));
+  			int dx = Math.abs((cells[key] & 15) - (cells[key - 1] & 15));
+  			adjacent &= dx + dy == 1;
+  		}
+  		show("Hilbert keys of a square are a range", filled);
+  		show("Consecutive Hilbert keys are adjacent", adjacent);
+
+  		ArraySegmentStore ordered = ArraySegmentStore.inHilbertOrder(store);
+  		boolean sameSegments = ordered.getSegmentCount() == segments.length &&
+  							   ordered.getPointCount() == store.getPointCount();
+  		List<GeoSegment> expected = new ArrayList<>(Arrays.asList(segments));
+  		for (int i = 0; i < ordered.getSegmentCount(); i++) {
+  			sameSegments &= expected.remove(ordered.getSegment(i));
+  		}
+  		boolean pointsInOrder = true;
+  		for (int i = 1; i < ordered.getPointCount(); i++) {
+  			pointsInOrder &= SpaceFillingCurve.hilbertKey(ordered.getPoint(i - 1)) <=
+  							 SpaceFillingCurve.hilbertKey(ordered.getPoint(i));
+  		}
+  		boolean segmentsInOrder = true;
+  		for (int i = 1; i < ordered.getSegmentCount(); i++) {
+  			segmentsInOrder &= ordered.getP1Id(i - 1) <= ordered.getP1Id(i);
+  		}
+  		show("Reordered stores hold the same segments", sameSegments);
+  		show("Reordered points follow the Hilbert curve", pointsInOrder);
+  		show("Reordered segments follow their first points", segmentsInOrder);
+  	}
+
+
+  	public void testPointIdMap() {
+  		show("PointIdMap");
+  		PointIdMap map = new PointIdMap(0);
+  		Random random = new Random(19);
+  		HashMap<GeoPoint, Integer> expected = new HashMap<>();
+  		boolean added = true;
+  		for (int i = 0; i < 5000; i++) {
+  			// few distinct coordinates, so that locations repeat.
+  			GeoPoint point = new GeoPoint(GeoPoint.MIN_LATITUDE + random.nextInt(100),
+  										  GeoPoint.MAX_LONGITUDE - random.nextInt(100));
+  			Integer id = expected.putIfAbsent(point, i);
+  			added &= map.putIfAbsent(point.getLatitude(), point.getLongitude(), i) == (id == null ? -1 : id);
+  		}
+  		boolean found = map.size() == expected.size();
+  		for (Map.Entry<GeoPoint, Integer> entry: expected.entrySet()) {
+  			found &= map.get(entry.getKey().getLatitude(), entry.getKey().getLongitude()) == entry.getValue();
+  		}
+  		show("putIfAbsent() keeps the first id of every location", added);
+  		show("get() finds every location after growing", found);
+  		show("get() of a missing location is -1", map.get(0, 0) == -1);
+  		GeoPoint point = expected.keySet().iterator().next();
+  		show("put() replaces the id of a location",
+  			map.put(point.getLatitude(), point.getLongitude(), 123456) == expected.get(point) &&
+  			map.get(point.getLatitude(), point.getLongitude()) == 123456 && map.size() == expected.size());
+  	}
+
+
+  	public void testSyntheticCity() {
+  		show("SyntheticCity");
+  		for (SyntheticCity.Layout layout: SyntheticCity.Layout.values()) {
+  			ArraySegmentStore city = new SyntheticCity(layout, 5000, 7).generateStore();
+  			ArraySegmentStore again = new SyntheticCity(layout, 5000, 7).generateStore();
+  			ArraySegmentStore other = new SyntheticCity(layout, 5000, 8).generateStore();
+  			boolean same = city.getPointCount() == again.getPointCount();
+  			boolean differs = false;
+  			boolean proper = true;
+  			for (int s = 0; s < city.getSegmentCount(); s++) {
+  				same &= city.getSegment(s).equals(again.getSegment(s));
+  				differs |= !city.getSegment(s).equals(other.getSegment(s));
+  				proper &= city.getP1Id(s) != city.getP2Id(s);
+  			}
+  			show(layout + " city has the asked number of segments",
+  				city.getSegmentCount() == 5000 &&
+  				new SyntheticCity(layout, 0, 7).generateStore().getSegmentCount() == 0);
+  			show(layout + " city is the same for the same seed", same);
+  			show(layout + " city differs for another seed", differs);
+  			show(layout + " city has no segment from a point to itself", proper);
+  			show(layout + " city reuses street names",
+  				city.getNameCount() > 10 && city.getNameCount() * 20 < city.getSegmentCount());
+  		}
+
+  		// the first row of a grid starts with a named stretch of at least 4
+  		// blocks, east of every intersection; north blocks come in between.
+  		GeoSegment[] grid = new SyntheticCity(SyntheticCity.Layout.GRID, 5000, 7).generateSegments();
+  		Route row = new Route(grid[0]).addSegment(grid[2]).addSegment(grid[4]).addSegment(grid[6]);
+  		Iterator<GeoFeature> features = row.getGeoFeatures();
+  		features.next();
+  		show("Grid streets merge into features", !features.hasNext());
+
+  		ArraySegmentStore organic = new SyntheticCity(SyntheticCity.Layout.ORGANIC, 5000, 7).generateStore();
+  		RoadGraph graph = new RoadGraph(Arrays.asList(
+  			new SyntheticCity(SyntheticCity.Layout.ORGANIC, 5000, 7).generateSegments()), true);
+  		int[] targets = new int[graph.getNodeCount()];
+  		for (int n = 0; n < targets.length; n++) {
+  			targets[n] = n;
+  		}
+  		double[] distances = new double[targets.length];
+  		new RouteFinder(graph, false).findDistances(0, targets, distances, 0);
+  		boolean connected = graph.getNodeCount() == organic.getPointCount();
+  		for (double distance: distances) {
+  			connected &= distance < Double.POSITIVE_INFINITY;
+  		}
+  		show("Organic cities are connected", connected);
+  	}
+
+
+  	/**
+  	 * Writes bytes to file, and returns whether mapping it throws IOException.
+  	 */
+  	private static boolean mapFails(Path file, byte[] bytes) throws IOException {
+  		Files.write(file, bytes);
+  		try {
+  			SegmentStoreSnapshot.map(file);
+  			return false;
+  		} catch (IOException e) {
+  			return true;
+  		}
+  	}
+
+
+  	/**
+  	 * Returns the ids of all segments of index, nearest to point first,
+  	 * ties broken by smaller id.
+  	 */
+  	private static int[] bruteForceNearest(SegmentGridIndex index, GeoPoint point) {
+  		Integer[] ids = new Integer[index.getStore().getSegmentCount()];
+  		for (int s = 0; s < ids.length; s++) {
+  			ids[s] = s;
+  		}
+  		Arrays.sort(ids, Comparator.<Integer>comparingDouble(s -> index.distance(point, s))
+  								   .thenComparingInt(s -> s));
+  		int[] nearest = new int[ids.length];
+  		for (int s = 0; s < ids.length; s++) {
+  			nearest[s] = ids[s];
+  		}
+  		return nearest;
+  	}
+
+
+	public static void main(String[] args) {
+		SegmentStoreTest storeTest = new SegmentStoreTest();
+		storeTest.test();
+		storeTest.testGridIndex();
+		storeTest.testHilbertOrder();
+		storeTest.testPointIdMap();
+		storeTest.testSyntheticCity();
+	}
+}
@@ -0,0 +1,103 @@
+package homework1;
+
+/**
+ * A ShortestPathResult is the outcome of a single shortest-path query: the
+ * Route found, if any, and statistics about the search that found it.
+ * ShortestPathResults are immutable.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   route : Route          // the shortest route found, or null if there is none
+ *   length : real          // the length of route, in kilometers, 0 if the
+ *                          // start is the destination, or infinity
+ *   settledNodes : int     // the number of nodes the search settled
+ *   elapsedNanos : long    // the time the query took, in nanoseconds
+ * </pre>
+ **/
+public class ShortestPathResult {
+
+	private final Route route;
+	private final double length;
+	private final int settledNodes;
+	private final long elapsedNanos;
+
+	// Abstraction function: the fields of the specification are the fields
+	// of the same name.
+	//
+	// Representation invariant: settledNodes >= 0 && elapsedNanos >= 0 &&
+	// (route == null) == (length is infinite or 0).
+
+
+	/**
+	 * Constructs a new ShortestPathResult.
+	 * @requires settledNodes >= 0 && elapsedNanos >= 0 &&
+	 *           (route == null) == (length is infinite or 0)
+	 * @effects Constructs a new ShortestPathResult with the given fields.
+	 **/
+	public ShortestPathResult(Route route, double length, int settledNodes, long elapsedNanos) {
+		this.route = route;
+		this.length = length;
+		this.settledNodes = settledNodes;
+		this.elapsedNanos = elapsedNanos;
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Returns the route found.
+	 * @return the shortest route found, or null if no route of at least one
+	 *         segment leads from the start to the destination of the query.
+	 **/
+	public Route getRoute() {
+		return route;
+	}
+
+
+	/**
+	 * Returns the length of the route found.
+	 * @return the length of getRoute() in kilometers, 0 if the start of the
+	 *         query is its destination, or Double.POSITIVE_INFINITY if
+	 *         getRoute() is null otherwise.
+	 **/
+	public double getLength() {
+		return length;
+	}
+
+
+	/**
+	 * Returns the number of nodes the search settled.
+	 * @return the number of nodes whose shortest distance the search
+	 *         determined before it stopped.
+	 **/
+	public int getSettledNodes() {
+		return settledNodes;
+	}
+
+
+	/**
+	 * Returns the time the query took.
+	 * @return the time the query took, in nanoseconds, including building
+	 *         the Route.
+	 **/
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 **/
+	public String toString() {
+		return String.format("%.3f km, %d nodes settled in %d ns", length, settledNodes, elapsedNanos);
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		return settledNodes >= 0 && elapsedNanos >= 0 &&
+			   (route == null) == (Double.isInfinite(length) || length == 0);
+	}
+}
@@ -0,0 +1,142 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * SpaceFillingCurve computes keys that order locations along the Morton
+ * (Z-order) and Hilbert curves, so that locations close on the ground tend
+ * to be close in the order. Storing points, nodes or segments in that order
+ * keeps neighbours close in memory, which makes graph searches and spatial
+ * queries touch fewer cache lines and pages.
+ * <p>
+ * Both curves cover the whole range of GeoPoint coordinates: latitudes and
+ * longitudes, in millionths of degrees, are shifted to be non-negative and
+ * taken as COORDINATE_BITS-bit numbers. The Hilbert curve keeps better
+ * locality, since consecutive keys are always adjacent cells; the Morton
+ * key is cheaper to compute.
+ **/
+public final class SpaceFillingCurve {
+
+	/** The number of bits of each coordinate used by the keys. **/
+	public static final int COORDINATE_BITS = 29;
+
+	// the total number of bits of a key.
+	private static final int KEY_BITS = 2 * COORDINATE_BITS;
+
+
+	private SpaceFillingCurve() {
+	}
+
+
+	/**
+	 * Computes the Morton key of a location.
+	 * @requires latitude and longitude, in millionths of degrees, are those
+	 *           of a valid GeoPoint
+	 * @return the position of (latitude, longitude) along the Morton curve:
+	 *         the bits of the shifted latitude and longitude interleaved.
+	 **/
+	public static long mortonKey(int latitude, int longitude) {
+		return spread(y(latitude)) << 1 | spread(x(longitude));
+	}
+
+
+	/**
+	 * Computes the Hilbert key of a location.
+	 * @requires latitude and longitude, in millionths of degrees, are those
+	 *           of a valid GeoPoint
+	 * @return the position of (latitude, longitude) along the Hilbert curve
+	 *         of order COORDINATE_BITS.
+	 **/
+	public static long hilbertKey(int latitude, int longitude) {
+		long x = x(longitude);
+		long y = y(latitude);
+		long key = 0;
+		for (long s = 1L << (COORDINATE_BITS - 1); s > 0; s >>>= 1) {
+			long rx = (x & s) != 0 ? 1 : 0;
+			long ry = (y & s) != 0 ? 1 : 0;
+			key += s * s * ((3 * rx) ^ ry);
+			// rotate the quadrant so the curve continues where it left off.
+			if (ry == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				long t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return key;
+	}
+
+
+	/**
+	 * Computes the Hilbert key of a point.
+	 * @requires point != null
+	 * @return hilbertKey(point.latitude, point.longitude)
+	 **/
+	public static long hilbertKey(GeoPoint point) {
+		return hilbertKey(point.getLatitude(), point.getLongitude());
+	}
+
+
+	/**
+	 * Computes the order of locations along the Hilbert curve.
+	 * @requires count >= 0 && latitudes and longitudes give the coordinates
+	 *           of valid GeoPoints for 0 <= i < count
+	 * @return a permutation order of 0..count-1 that sorts the locations
+	 *         (latitudes(i), longitudes(i)) by Hilbert key, ties broken by
+	 *         smaller i. For more than 32 locations, keys are compared on
+	 *         their top bits only, which still tells apart cells some tens
+	 *         of meters wide for a few million locations.
+	 **/
+	static int[] hilbertOrder(int count, IntUnaryOperator latitudes, IntUnaryOperator longitudes) {
+		// sort (key, index) pairs packed in one long, the key in the high bits.
+		int indexBits = 32 - Integer.numberOfLeadingZeros(Math.max(count - 1, 1));
+		int keyShift = Math.max(0, KEY_BITS - (Long.SIZE - 1 - indexBits));
+		long[] packed = new long[count];
+		for (int i = 0; i < count; i++) {
+			long key = hilbertKey(latitudes.applyAsInt(i), longitudes.applyAsInt(i)) >>> keyShift;
+			packed[i] = key << indexBits | i;
+		}
+		Arrays.sort(packed);
+		int[] order = new int[count];
+		long indexMask = (1L << indexBits) - 1;
+		for (int i = 0; i < count; i++) {
+			order[i] = (int)(packed[i] & indexMask);
+		}
+		return order;
+	}
+
+
+	/**
+	 * @effects returns longitude shifted to 0..2^COORDINATE_BITS-1.
+	 **/
+	private static long x(int longitude) {
+		return (long)longitude - GeoPoint.MIN_LONGITUDE;
+	}
+
+
+	/**
+	 * @effects returns latitude shifted to 0..2^COORDINATE_BITS-1.
+	 **/
+	private static long y(int latitude) {
+		return (long)latitude - GeoPoint.MIN_LATITUDE;
+	}
+
+
+	/**
+	 * @effects returns the COORDINATE_BITS low bits of value, spread to the
+	 *          even bits of the result.
+	 **/
+	private static long spread(long value) {
+		value &= (1L << COORDINATE_BITS) - 1;
+		value = (value | value << 16) & 0x0000FFFF0000FFFFL;
+		value = (value | value << 8) & 0x00FF00FF00FF00FFL;
+		value = (value | value << 4) & 0x0F0F0F0F0F0F0F0FL;
+		value = (value | value << 2) & 0x3333333333333333L;
+		value = (value | value << 1) & 0x5555555555555555L;
+		return value;
+	}
+}
@@ -0,0 +1,132 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SpatialOrderBenchmark measures how much storing a road network in
+ * Hilbert order speeds up shortest-path searches and nearest-segment
+ * lookups, compared to storing it in the arbitrary order it was read in.
+ * <p>
+ * The network is a grid of streets with jittered intersections whose
+ * segments are shuffled, as they would be in a file merged from many
+ * sources. Each workload runs on the network as read and in Hilbert order,
+ * and reports the time per operation. Java cannot read the processor's
+ * cache counters; run the benchmark under <tt>perf stat -e cache-misses</tt>
+ * to see the misses themselves.
+ * <p>
+ * Usage: <tt>java homework1.SpatialOrderBenchmark [gridSize]</tt>
+ */
+public class SpatialOrderBenchmark {
+
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int ROUNDS = 3;
+	private static final int SEARCHES = 200;
+	private static final int SNAPS = 1000000;
+
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+		List<GeoSegment> segments = shuffledGrid(size, 1);
+		System.out.println(segments.size() + " segments");
+
+		RoadGraph asRead = new RoadGraph(segments, false);
+		RoadGraph ordered = new RoadGraph(segments, false, true);
+		int[][] queries = new int[SEARCHES][];
+		Random random = new Random(2);
+		for (int i = 0; i < SEARCHES; i++) {
+			queries[i] = new int[] {random.nextInt(asRead.getNodeCount()),
+									random.nextInt(asRead.getNodeCount())};
+		}
+		report("A* search, as read", SEARCHES, () -> search(asRead, asRead, queries));
+		report("A* search, Hilbert order", SEARCHES, () -> search(asRead, ordered, queries));
+
+		ArraySegmentStore store = new ArraySegmentStore(segments.toArray(new GeoSegment[0]));
+		SegmentGridIndex asReadIndex = new SegmentGridIndex(store);
+		SegmentGridIndex orderedIndex = new SegmentGridIndex(ArraySegmentStore.inHilbertOrder(store));
+		report("Nearest segment, as read", SNAPS, () -> snap(asReadIndex, size));
+		report("Nearest segment, Hilbert order", SNAPS, () -> snap(orderedIndex, size));
+	}
+
+
+	/**
+	 * Runs workload WARMUP_ROUNDS + ROUNDS times, and prints the average time
+	 * per operation of the last ROUNDS runs.
+	 */
+	private static void report(String name, int operations, Runnable workload) {
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			workload.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			workload.run();
+		}
+		double nanos = (double)(System.nanoTime() - start) / ROUNDS / operations;
+		System.out.println(String.format("%-32s %10.1f ns/op", name, nanos));
+	}
+
+
+	/**
+	 * Runs the queries, given as node ids of queryGraph, on graph.
+	 */
+	private static void search(RoadGraph queryGraph, RoadGraph graph, int[][] queries) {
+		RouteFinder finder = new RouteFinder(graph);
+		double total = 0;
+		for (int[] query: queries) {
+			total += finder.findDistance(graph.getNodeId(queryGraph.getNode(query[0])),
+										 graph.getNodeId(queryGraph.getNode(query[1])));
+		}
+		consume(total);
+	}
+
+
+	/**
+	 * Snaps SNAPS random locations in the area of a size x size grid.
+	 */
+	private static void snap(SegmentGridIndex index, int size) {
+		Random random = new Random(3);
+		long total = 0;
+		for (int i = 0; i < SNAPS; i++) {
+			total += index.nearestSegment(32780000 + random.nextInt(1000 * size),
+										  35000000 + random.nextInt(1000 * size));
+		}
+		consume(total);
+	}
+
+
+	/**
+	 * Returns the segments of a size x size grid of two-way streets with
+	 * jittered intersections, in random order.
+	 */
+	private static List<GeoSegment> shuffledGrid(int size, long seed) {
+		Random random = new Random(seed);
+		GeoPoint[][] points = new GeoPoint[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				points[i][j] = new GeoPoint(32780000 + 1000 * i + random.nextInt(400),
+											35000000 + 1000 * j + random.nextInt(400));
+			}
+		}
+		List<GeoSegment> segments = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j + 1 < size; j++) {
+				segments.add(new GeoSegment("Street " + i, points[i][j], points[i][j + 1]));
+				segments.add(new GeoSegment("Street " + i, points[i][j + 1], points[i][j]));
+				segments.add(new GeoSegment("Avenue " + i, points[j][i], points[j + 1][i]));
+				segments.add(new GeoSegment("Avenue " + i, points[j + 1][i], points[j][i]));
+			}
+		}
+		Collections.shuffle(segments, random);
+		return segments;
+	}
+
+
+	// a sink for results, so the JIT cannot drop the work.
+	private static volatile double sink;
+
+	private static void consume(double value) {
+		sink = value;
+	}
+}
@@ -0,0 +1,38 @@
+package homework1;
+
+import java.io.IOException;
+
+/**
+ * A StepFormatter writes the line of directions for a single segment of a
+ * route, given what is known about the segment in every mode of travel:
+ * the turn onto it, its name and its length. StepFormatters are the modes
+ * rendered by a CompositeRouteFormatter, and WalkingRouteFormatter and
+ * DrivingRouteFormatter are StepFormatters.
+ **/
+public interface StepFormatter {
+
+	/**
+	 * Computes the turn onto a segment, as passed to appendStep().
+	 * @requires 0 <= origHeading < 360 && 0 <= newHeading < 360
+	 * @return the turn from origHeading to newHeading, such as "Turn left"
+	 *         or "Continue". RouteFormatters return their getTurnString(),
+	 *         and other StepFormatters RouteFormatter's default turns.
+	 **/
+	default String computeTurn(double origHeading, double newHeading) {
+		return RouteFormatter.turnString(origHeading, newHeading);
+	}
+
+
+	/**
+	 * Appends the line of directions for one segment to out.
+	 * @requires out != null && turn != null && name != null && length >= 0
+	 * @param out the destination of the line.
+	 * @param turn the turn onto the segment, such as "Turn left" or
+	 * 			"Continue", as returned by computeTurn().
+	 * @param name the name of the segment.
+	 * @param length the length of the segment, in kilometers.
+	 * @effects appends a newline-terminated line of directions to out.
+	 * @throws IOException if out throws IOException.
+	 **/
+	void appendStep(Appendable out, String turn, String name, double length) throws IOException;
+}
@@ -0,0 +1,358 @@
+package homework1;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * A SyntheticCity generates the street network of an imaginary city around
+ * the Technion, of any size, for load and scale testing.
+ * <p>
+ * Generation is deterministic: the same layout, size and seed always give
+ * the same points, segments and names, in the same order. Two layouts are
+ * available:
+ * <ul>
+ * <li>GRID: a Manhattan-like lattice of blocks about 100 meters long, with
+ *     slightly jittered intersections. Every row and every column is split
+ *     into stretches of a few dozen blocks, each named after a street.
+ * <li>ORGANIC: streets that wander from existing intersections with slowly
+ *     drifting headings, ending where they run into another street. The
+ *     network is connected, and its density is the same whatever its size.
+ * </ul>
+ * Street names come from a fixed pool of common names, drawn so that a few
+ * are much more common than the rest, as in real cities. Consecutive
+ * segments of a street share a name, so Routes along them merge into long
+ * GeoFeatures, and different streets often share a name too.
+ * <p>
+ * Cities of up to about 50 million segments can be generated on one machine
+ * with a few gigabytes of heap: generateStore() builds a columnar
+ * ArraySegmentStore without creating a GeoPoint or GeoSegment per element,
+ * and writeSnapshot() saves it in the SegmentStoreSnapshot format. Only
+ * generateSegments() creates objects, and is meant for smaller cities.
+ * <p>
+ * Usage: <tt>java homework1.SyntheticCity grid|organic segmentCount seed file</tt>
+ * writes a snapshot of the city to file.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   layout : Layout    // the shape of the network
+ *   size : integer     // the number of segments of the city
+ *   seed : long        // the seed of the generation
+ * </pre>
+ **/
+public final class SyntheticCity {
+
+	/** The shapes of street networks a SyntheticCity can generate. **/
+	public enum Layout { GRID, ORGANIC }
+
+	// the center of every city: the Ziv square.
+	private static final int CENTER_LATITUDE = 32783098;
+	private static final int CENTER_LONGITUDE = 35014528;
+
+	// the length of a grid block, and the most an intersection is moved
+	// off the lattice, in kilometers.
+	private static final double BLOCK_KM = 0.1;
+	private static final double JITTER_KM = 0.01;
+
+	// the shortest and longest named stretch of a grid row or column, in blocks.
+	private static final int MIN_STRETCH = 4;
+	private static final int MAX_STRETCH = 40;
+
+	// the length of an organic segment is between SEGMENT_KM and twice
+	// that, and its heading differs from the last by about TURN_DEGREES.
+	private static final double SEGMENT_KM = 0.06;
+	private static final double TURN_DEGREES = 12;
+
+	// the shortest and longest organic street, in segments.
+	private static final int MIN_STREET = 5;
+	private static final int MAX_STREET = 60;
+
+	// organic intersections are at least about SNAP_KM apart: a street that
+	// comes that close to an intersection joins it.
+	private static final double SNAP_KM = 0.04;
+
+	// the area of an organic city per segment, in square kilometers.
+	private static final double KM2_PER_SEGMENT = 0.006;
+
+	private static final String[] NAME_BASES = {
+		"Herzl", "Hankin", "Trumpeldor", "Hagalil", "Hanita", "Ruppin", "Hagefen",
+		"Ha'atzmaut", "Ben Gurion", "Weizmann", "Jabotinsky", "Bialik", "Rothschild",
+		"Allenby", "Balfour", "Sokolov", "Ahad Ha'am", "Hanasi", "Moriah", "Horev",
+		"Hashomer", "Hagana", "Ha'palmach", "Hertzog", "Einstein", "Dizengoff",
+		"Arlozorov", "King George", "Yafo", "Derech Hayam", "Pinsker", "Tchernichovsky"
+	};
+
+	private static final String[] NAME_SUFFIXES = {
+		"Street", "Road", "Avenue", "Boulevard", "Lane", "Square"
+	};
+
+	private final Layout layout;
+	private final int size;
+	private final long seed;
+
+	// the pool of street names, the most common first.
+	private final String[] names;
+
+	// Abstraction function: a SyntheticCity generates the city of layout
+	// with size segments from seed.
+	//
+	// Representation invariant: layout != null && size >= 0 && names holds
+	// one String per NAME_BASES, NAME_SUFFIXES pair.
+
+
+	/**
+	 * Constructs a new SyntheticCity.
+	 * @requires layout != null && size >= 0
+	 * @effects Constructs a new SyntheticCity that generates the city of
+	 *          layout with size segments from seed.
+	 **/
+	public SyntheticCity(Layout layout, int size, long seed) {
+		this.layout = layout;
+		this.size = size;
+		this.seed = seed;
+		names = new String[NAME_BASES.length * NAME_SUFFIXES.length];
+		for (int s = 0; s < NAME_SUFFIXES.length; s++) {
+			for (int b = 0; b < NAME_BASES.length; b++) {
+				names[s * NAME_BASES.length + b] = NAME_BASES[b] + " " + NAME_SUFFIXES[s];
+			}
+		}
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Generates the city as a SegmentStore.
+	 * @return a new ArraySegmentStore holding the size segments of the city,
+	 *         their endpoints and their names. Every call returns an equal
+	 *         store, with the same ids.
+	 **/
+	public ArraySegmentStore generateStore() {
+		ArraySegmentStore store = new ArraySegmentStore();
+		Random random = new Random(seed);
+		if (layout == Layout.GRID) {
+			generateGrid(store, random);
+		} else {
+			generateOrganic(store, random);
+		}
+		return store;
+	}
+
+
+	/**
+	 * Generates the city as GeoSegments.
+	 * @return a new array of the segments of generateStore(), in order.
+	 **/
+	public GeoSegment[] generateSegments() {
+		ArraySegmentStore store = generateStore();
+		GeoSegment[] segments = new GeoSegment[store.getSegmentCount()];
+		for (int s = 0; s < segments.length; s++) {
+			segments[s] = store.getSegment(s);
+		}
+		return segments;
+	}
+
+
+	/**
+	 * Writes a snapshot of the city to a file.
+	 * @requires file != null
+	 * @modifies the file at file
+	 * @effects creates or replaces the file at file with
+	 *          SegmentStoreSnapshot.write(generateStore(), file).
+	 * @throws IOException if the file cannot be written.
+	 **/
+	public void writeSnapshot(Path file) throws IOException {
+		SegmentStoreSnapshot.write(generateStore(), file);
+	}
+
+
+	/**
+	 * @modifies store, random
+	 * @effects adds to store the first size segments of a grid, row by row:
+	 *          for every intersection, the block east of it and the block
+	 *          north of it.
+	 **/
+	private void generateGrid(ArraySegmentStore store, Random random) {
+		// a square grid of width w has about 2 w^2 blocks.
+		int width = (int)Math.ceil(Math.sqrt(size / 2.0)) + 1;
+		int latitudeStep = microdegrees(BLOCK_KM, GeoPoint.KM_PER_DEGREE_LATITUDE);
+		int longitudeStep = microdegrees(BLOCK_KM, GeoPoint.KM_PER_DEGREE_LONGITUDE);
+		int latitudeJitter = microdegrees(JITTER_KM, GeoPoint.KM_PER_DEGREE_LATITUDE);
+		int longitudeJitter = microdegrees(JITTER_KM, GeoPoint.KM_PER_DEGREE_LONGITUDE);
+		int south = CENTER_LATITUDE - latitudeStep * (width / 2);
+		int west = CENTER_LONGITUDE - longitudeStep * (width / 2);
+
+		// the names of the column stretches the current row is in, and the
+		// number of blocks left in each.
+		String[] columnNames = new String[width];
+		int[] columnLeft = new int[width];
+		int remaining = size;
+		for (int row = 0; remaining > 0; row++) {
+			// the points of row + 1 are added with row, so their ids follow
+			// those of row; row 0 gets its points first.
+			if (row == 0) {
+				addRow(store, random, row, width, south, west, latitudeStep, longitudeStep,
+					   latitudeJitter, longitudeJitter);
+			}
+			addRow(store, random, row + 1, width, south, west, latitudeStep, longitudeStep,
+				   latitudeJitter, longitudeJitter);
+			int first = row * width;
+			String rowName = null;
+			int rowLeft = 0;
+			for (int column = 0; column < width && remaining > 0; column++) {
+				if (column + 1 < width) {
+					if (rowLeft == 0) {
+						rowName = nextName(random);
+						rowLeft = stretch(random);
+					}
+					store.addSegment(rowName, first + column, first + column + 1);
+					rowLeft--;
+					remaining--;
+				}
+				if (remaining > 0) {
+					if (columnLeft[column] == 0) {
+						columnNames[column] = nextName(random);
+						columnLeft[column] = stretch(random);
+					}
+					store.addSegment(columnNames[column], first + column, first + width + column);
+					columnLeft[column]--;
+					remaining--;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * @modifies store, random
+	 * @effects adds the width jittered intersections of row of the grid to
+	 *          store, west to east.
+	 **/
+	private static void addRow(ArraySegmentStore store, Random random, int row, int width,
+							   int south, int west, int latitudeStep, int longitudeStep,
+							   int latitudeJitter, int longitudeJitter) {
+		for (int column = 0; column < width; column++) {
+			store.addPoint(south + row * latitudeStep + jitter(random, latitudeJitter),
+						   west + column * longitudeStep + jitter(random, longitudeJitter));
+		}
+	}
+
+
+	/**
+	 * @modifies store, random
+	 * @effects adds to store size segments of streets that each start at an
+	 *          existing intersection and wander until they end or join
+	 *          another street.
+	 **/
+	private void generateOrganic(ArraySegmentStore store, Random random) {
+		if (size == 0) {
+			return;
+		}
+		double radiusKm = Math.sqrt(size * KM2_PER_SEGMENT / Math.PI);
+		int cellLatitude = microdegrees(SNAP_KM, GeoPoint.KM_PER_DEGREE_LATITUDE);
+		int cellLongitude = microdegrees(SNAP_KM, GeoPoint.KM_PER_DEGREE_LONGITUDE);
+		// the intersection in every cell of a grid of SNAP_KM squares, if any.
+		PointIdMap cells = new PointIdMap(size / 2);
+		cells.put(0, 0, store.addPoint(CENTER_LATITUDE, CENTER_LONGITUDE));
+
+		int remaining = size;
+		while (remaining > 0) {
+			int point = random.nextInt(store.getPointCount());
+			double heading = random.nextDouble() * 360;
+			int length = Math.min(remaining, MIN_STREET + random.nextInt(MAX_STREET - MIN_STREET + 1));
+			String name = nextName(random);
+			for (int i = 0; i < length; i++) {
+				double northKm = (store.getLatitude(point) - CENTER_LATITUDE) /
+								 (double)GeoPoint.MILLION * GeoPoint.KM_PER_DEGREE_LATITUDE;
+				double eastKm = (store.getLongitude(point) - CENTER_LONGITUDE) /
+								(double)GeoPoint.MILLION * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+				heading += random.nextGaussian() * TURN_DEGREES;
+				if (Math.hypot(northKm, eastKm) > radiusKm) {
+					// past the edge of the city: turn back towards its center.
+					heading = Math.toDegrees(Math.atan2(-eastKm, -northKm));
+				}
+				double stepKm = SEGMENT_KM * (1 + random.nextDouble());
+				int latitude = store.getLatitude(point) +
+					microdegrees(stepKm * Math.cos(Math.toRadians(heading)), GeoPoint.KM_PER_DEGREE_LATITUDE);
+				int longitude = store.getLongitude(point) +
+					microdegrees(stepKm * Math.sin(Math.toRadians(heading)), GeoPoint.KM_PER_DEGREE_LONGITUDE);
+
+				int cellRow = Math.floorDiv(latitude - CENTER_LATITUDE, cellLatitude);
+				int cellColumn = Math.floorDiv(longitude - CENTER_LONGITUDE, cellLongitude);
+				int next = cells.get(cellRow, cellColumn);
+				boolean joined = next >= 0;
+				if (next == point) {
+					break;
+				}
+				if (!joined) {
+					next = store.addPoint(latitude, longitude);
+					cells.put(cellRow, cellColumn, next);
+				}
+				store.addSegment(name, point, next);
+				remaining--;
+				point = next;
+				if (joined) {
+					break;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * @modifies random
+	 * @effects returns a name from the pool, the first names the most likely.
+	 **/
+	private String nextName(Random random) {
+		double r = random.nextDouble();
+		return names[(int)(r * r * names.length)];
+	}
+
+
+	/**
+	 * @modifies random
+	 * @effects returns the length, in blocks, of a new grid street stretch.
+	 **/
+	private static int stretch(Random random) {
+		return MIN_STRETCH + random.nextInt(MAX_STRETCH - MIN_STRETCH + 1);
+	}
+
+
+	/**
+	 * @modifies random
+	 * @effects returns a random offset between -maxOffset and maxOffset.
+	 **/
+	private static int jitter(Random random, int maxOffset) {
+		return random.nextInt(2 * maxOffset + 1) - maxOffset;
+	}
+
+
+	/**
+	 * @effects returns km in millionths of degrees, at kmPerDegree.
+	 **/
+	private static int microdegrees(double km, double kmPerDegree) {
+		return (int)Math.round(km / kmPerDegree * GeoPoint.MILLION);
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		return layout != null && size >= 0 && names.length == NAME_BASES.length * NAME_SUFFIXES.length;
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 4) {
+			System.err.println("Usage: java homework1.SyntheticCity grid|organic segmentCount seed file");
+			System.exit(1);
+		}
+		SyntheticCity city = new SyntheticCity(Layout.valueOf(args[0].toUpperCase()),
+											   Integer.parseInt(args[1]), Long.parseLong(args[2]));
+		long start = System.nanoTime();
+		city.writeSnapshot(Paths.get(args[3]));
+		System.out.println(String.format("wrote %s segments to %s in %.1f s", args[1], args[3],
+										 (System.nanoTime() - start) / 1e9));
+	}
+}
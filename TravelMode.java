@@ -0,0 +1,34 @@
+package homework1;
+
+/**
+ * A TravelMode is a model of how fast a traveller moves along GeoSegments,
+ * such as a pedestrian walking at a steady pace or a car driving at the
+ * speed limit of each street.
+ **/
+public interface TravelMode {
+
+	/**
+	 * Walking at the speed assumed by WalkingRouteFormatter.
+	 **/
+	TravelMode WALKING = atMinutesPerKilometer(WalkingRouteFormatter.MINUTES_PER_KILOMETER);
+
+
+	/**
+	 * Returns the pace of travel along a segment.
+	 * @requires segment != null
+	 * @return the number of minutes it takes to travel one kilometer along
+	 *         segment, which is greater than 0.
+	 **/
+	double getMinutesPerKilometer(GeoSegment segment);
+
+
+	/**
+	 * Returns a TravelMode of constant pace.
+	 * @requires minutesPerKilometer > 0
+	 * @return a TravelMode that takes minutesPerKilometer minutes to travel
+	 *         one kilometer along any segment.
+	 **/
+	static TravelMode atMinutesPerKilometer(double minutesPerKilometer) {
+		return segment -> minutesPerKilometer;
+	}
+}
@@ -0,0 +1,178 @@
+package homework1;
+
+/**
+ * A TurnAwareRouteFinder finds the routes between points of a RoadGraph
+ * that are shortest once every turn along them is charged its TurnPenalty.
+ * With the DRIVING penalties, routes avoid U-turns and sharp turns unless
+ * the detour around them is long.
+ * <p>
+ * Since the cost of a turn depends on the edge it is made from, the search
+ * runs on edges rather than nodes: it settles the edges in order of the
+ * penalized length of the cheapest path that ends with them, and stops at
+ * the first edge that leads to the destination. Turn classes are read from
+ * the table RoadGraph built, and the search is an A* search with the same
+ * heuristic as RouteFinder, which penalties only make more conservative.
+ * <p>
+ * Like a RouteFinder, a TurnAwareRouteFinder reuses primitive search arrays
+ * (here indexed by edge id) for every query, and must not be used by more
+ * than one thread at a time.
+ */
+public class TurnAwareRouteFinder {
+
+	private final RoadGraph graph;
+	private final TurnPenalties penalties;
+
+	// the search state, indexed by edge id and stamped like RouteFinder's:
+	// costs[e] is the penalized length of the cheapest path found ending
+	// with edge e, whose previous edge is parentEdges[e] (-1 if none).
+	private final double[] costs;
+	private final int[] parentEdges;
+	private final int[] reachedInSearch;
+	private final NodeHeap heap;
+	private int search;
+
+	// Abstraction function: a TurnAwareRouteFinder finds routes in graph
+	// that are shortest under penalties.
+	//
+	// Representation invariant: graph != null && penalties != null &&
+	// costs, parentEdges and reachedInSearch have one entry per edge of graph.
+
+
+	/**
+	 * Constructs a new TurnAwareRouteFinder.
+	 * @requires graph != null && penalties != null
+	 * @effects Constructs a new TurnAwareRouteFinder that finds routes in
+	 *          graph, charging turns according to penalties.
+	 **/
+	public TurnAwareRouteFinder(RoadGraph graph, TurnPenalties penalties) {
+		this.graph = graph;
+		this.penalties = penalties;
+		int edgeCount = graph.getEdgeCount();
+		costs = new double[edgeCount];
+		parentEdges = new int[edgeCount];
+		reachedInSearch = new int[edgeCount];
+		heap = new NodeHeap(edgeCount);
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Finds the cheapest route between two points.
+	 * @requires from != null && to != null
+	 * @return a ShortestPathResult r such that r.route is a Route of edge
+	 *         segments of the graph from from to to, built by
+	 *         Route.addSegment(), whose length plus the penalties of its
+	 *         turns between consecutive segments is smallest, or null if
+	 *         there is no such route of at least one segment (in particular,
+	 *         if from or to is not a node). r.length is the length of the
+	 *         route, without penalties, 0 if from and to are the same node,
+	 *         or Double.POSITIVE_INFINITY if r.route is null otherwise.
+	 **/
+	public ShortestPathResult findRoute(GeoPoint from, GeoPoint to) {
+		long startTime = System.nanoTime();
+		int source = graph.getNodeId(from);
+		int target = graph.getNodeId(to);
+		if (source < 0 || target < 0 || source == target) {
+			return new ShortestPathResult(null, source >= 0 && source == target ? 0 : Double.POSITIVE_INFINITY,
+										  0, System.nanoTime() - startTime);
+		}
+		search++;
+		heap.clear();
+		for (int e = graph.getEdgesStart(source); e < graph.getEdgesEnd(source); e++) {
+			reach(e, graph.getEdgeWeight(e), -1, target);
+		}
+		int settled = 0;
+		int lastEdge = -1;
+		while (!heap.isEmpty()) {
+			int edge = heap.poll();
+			settled++;
+			int node = graph.getEdgeTarget(edge);
+			if (node == target) {
+				lastEdge = edge;
+				break;
+			}
+			double cost = costs[edge];
+			for (int next = graph.getEdgesStart(node); next < graph.getEdgesEnd(node); next++) {
+				double nextCost = cost + penalties.getPenalty(graph.getTurnClass(edge, next)) +
+								  graph.getEdgeWeight(next);
+				if (reachedInSearch[next] != search || nextCost < costs[next]) {
+					reach(next, nextCost, edge, target);
+				}
+			}
+		}
+
+		Route route = null;
+		double length = Double.POSITIVE_INFINITY;
+		if (lastEdge >= 0) {
+			route = routeTo(lastEdge);
+			length = route.getLength();
+		}
+		return new ShortestPathResult(route, length, settled, System.nanoTime() - startTime);
+	}
+
+
+	/**
+	 * Returns the graph this searches.
+	 * @return the graph this searches.
+	 **/
+	public RoadGraph getGraph() {
+		return graph;
+	}
+
+
+	/**
+	 * Returns the penalties this charges for turns.
+	 * @return the penalties this charges for turns.
+	 **/
+	public TurnPenalties getPenalties() {
+		return penalties;
+	}
+
+
+	/**
+	 * @modifies this
+	 * @effects records that edge is reached at cost through parentEdge, and
+	 *          queues it with its A* key towards target.
+	 **/
+	private void reach(int edge, double cost, int parentEdge, int target) {
+		reachedInSearch[edge] = search;
+		costs[edge] = cost;
+		parentEdges[edge] = parentEdge;
+		int node = graph.getEdgeTarget(edge);
+		heap.insertOrDecrease(edge, cost + GeoPoint.distance(
+				graph.getLatitude(node), graph.getLongitude(node),
+				graph.getLatitude(target), graph.getLongitude(target)));
+	}
+
+
+	/**
+	 * @effects returns the Route along the parent edges of the last search,
+	 *          ending with lastEdge.
+	 * @requires lastEdge was settled by the last search.
+	 **/
+	private Route routeTo(int lastEdge) {
+		int edgeCount = 0;
+		for (int e = lastEdge; e >= 0; e = parentEdges[e]) {
+			edgeCount++;
+		}
+		int[] edges = new int[edgeCount];
+		for (int e = lastEdge; e >= 0; e = parentEdges[e]) {
+			edges[--edgeCount] = e;
+		}
+		Route route = new Route(graph.getEdgeSegment(edges[0]));
+		for (int i = 1; i < edges.length; i++) {
+			route = route.addSegment(graph.getEdgeSegment(edges[i]));
+		}
+		return route;
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		int edgeCount = graph.getEdgeCount();
+		return penalties != null && costs.length == edgeCount &&
+			   parentEdges.length == edgeCount && reachedInSearch.length == edgeCount;
+	}
+}
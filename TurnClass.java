@@ -0,0 +1,60 @@
+package homework1;
+
+/**
+ * A TurnClass is the kind of turn made when changing from one heading to
+ * another, as named by RouteFormatter.getTurnString() without telling left
+ * from right.
+ **/
+public enum TurnClass {
+
+	/** A change of heading of less than 10 degrees. **/
+	CONTINUE,
+
+	/** A change of heading of at least 10 and less than 60 degrees. **/
+	SLIGHT,
+
+	/** A change of heading of at least 60 and less than 120 degrees. **/
+	TURN,
+
+	/** A change of heading of at least 120 and less than 179 degrees. **/
+	SHARP,
+
+	/** A change of heading of at least 179 degrees. **/
+	U_TURN;
+
+	// values() copies its array on every call.
+	private static final TurnClass[] VALUES = values();
+
+
+	/**
+	 * Classifies a turn.
+	 * @requires 0 <= origHeading < 360 && 0 <= newHeading < 360
+	 * @return the TurnClass of the smaller angle between origHeading and
+	 *         newHeading.
+	 **/
+	public static TurnClass of(double origHeading, double newHeading) {
+		double difference = Math.abs(origHeading - newHeading);
+		double angle = Math.min(difference, 360 - difference);
+		if (angle < 10) {
+			return CONTINUE;
+		} else if (angle < 60) {
+			return SLIGHT;
+		} else if (angle < 120) {
+			return TURN;
+		} else if (angle < 179) {
+			return SHARP;
+		} else {
+			return U_TURN;
+		}
+	}
+
+
+	/**
+	 * Returns the TurnClass of an ordinal.
+	 * @requires 0 <= ordinal < the number of TurnClasses
+	 * @return the TurnClass t with t.ordinal() == ordinal.
+	 **/
+	static TurnClass ofOrdinal(int ordinal) {
+		return VALUES[ordinal];
+	}
+}
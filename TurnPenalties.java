@@ -0,0 +1,71 @@
+package homework1;
+
+/**
+ * A TurnPenalties is a price for each TurnClass, in kilometers: the
+ * detour a traveller would rather drive than make the turn. TurnPenalties
+ * are immutable.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   penalties : TurnClass -> real   // the penalty of each kind of turn
+ * </pre>
+ **/
+public class TurnPenalties {
+
+	/** No penalties: routes are as short as possible. **/
+	public static final TurnPenalties NONE = new TurnPenalties(0, 0, 0, 0, 0);
+
+	/**
+	 * Penalties for driving: turns cost a little, sharp turns more, and
+	 * U-turns are avoided unless they save a kilometer.
+	 **/
+	public static final TurnPenalties DRIVING = new TurnPenalties(0, 0.01, 0.05, 0.2, 1);
+
+	// indexed by TurnClass ordinal.
+	private final double[] penalties;
+
+	// Abstraction function: penalties[t] = this.penalties[t.ordinal()].
+	//
+	// Representation invariant: penalties has one entry per TurnClass, and
+	// none is negative.
+
+
+	/**
+	 * Constructs a new TurnPenalties.
+	 * @requires all arguments >= 0
+	 * @effects Constructs a new TurnPenalties with the given penalty, in
+	 *          kilometers, for each TurnClass.
+	 **/
+	public TurnPenalties(double continuePenalty, double slightPenalty, double turnPenalty,
+						 double sharpPenalty, double uTurnPenalty) {
+		penalties = new double[] {continuePenalty, slightPenalty, turnPenalty,
+								  sharpPenalty, uTurnPenalty};
+		assert(!ValidationLevel.onConstruction() || this.checkRep());
+	}
+
+
+	/**
+	 * Returns the penalty of a kind of turn.
+	 * @requires turnClass != null
+	 * @return penalties[turnClass], in kilometers.
+	 **/
+	public double getPenalty(TurnClass turnClass) {
+		return penalties[turnClass.ordinal()];
+	}
+
+
+	/**
+	 * @effects returns true iff the representation invariant holds.
+	 **/
+	private boolean checkRep() {
+		if (penalties.length != TurnClass.values().length) {
+			return false;
+		}
+		for (double penalty: penalties) {
+			if (!(penalty >= 0)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,104 @@
+package homework1;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A ValidationLevel tells GeoPoint, GeoSegment, GeoFeature and Route how
+ * often to check their representation invariants. The checks are run in
+ * assert statements, so no level has any effect unless assertions are
+ * enabled (-ea).
+ * <p>
+ * Since these classes are immutable, checking the invariant once when an
+ * object is constructed is enough to catch a broken representation.
+ * Checking it again on every method call, as FULL does, may cost time
+ * linear in the size of the object per call.
+ * <p>
+ * The initial level is read from the system property
+ * <tt>homework1.validation</tt> (one of <tt>off</tt>, <tt>construction</tt>,
+ * <tt>sampled</tt> or <tt>full</tt>), and is CONSTRUCTION if the property
+ * is not set.
+ */
+public enum ValidationLevel {
+
+	/** Representation invariants are never checked. **/
+	OFF,
+
+	/** Representation invariants are checked when an object is constructed. **/
+	CONSTRUCTION,
+
+	/**
+	 * Representation invariants are checked when an object is constructed,
+	 * and on one in SAMPLE_RATE method calls.
+	 **/
+	SAMPLED,
+
+	/** Representation invariants are checked on construction and on every method call. **/
+	FULL;
+
+	/** On average, SAMPLED checks one in SAMPLE_RATE method calls. **/
+	public static final int SAMPLE_RATE = 64;
+
+	/** The system property the initial level is read from. **/
+	public static final String PROPERTY = "homework1.validation";
+
+	private static volatile ValidationLevel current = fromProperty(System.getProperty(PROPERTY));
+
+
+	/**
+	 * Returns the current validation level.
+	 * @return the current validation level.
+	 */
+	public static ValidationLevel get() {
+		return current;
+	}
+
+
+	/**
+	 * Sets the current validation level.
+	 * @requires level != null
+	 * @effects sets the validation level used from now on by all the
+	 *          checked classes to level.
+	 */
+	public static void set(ValidationLevel level) {
+		current = level;
+	}
+
+
+	/**
+	 * Returns whether a newly constructed object should check its
+	 * representation invariant.
+	 * @return true iff the current level is not OFF.
+	 */
+	static boolean onConstruction() {
+		return current != OFF;
+	}
+
+
+	/**
+	 * Returns whether a method call should check the representation
+	 * invariant of its object.
+	 * @return true if the current level is FULL, true on one in SAMPLE_RATE
+	 *         calls on average if it is SAMPLED, false otherwise.
+	 */
+	static boolean onAccess() {
+		ValidationLevel level = current;
+		return level == FULL ||
+			   (level == SAMPLED && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0);
+	}
+
+
+	/**
+	 * @effects returns the level named by value, or CONSTRUCTION if value
+	 *          is null or names no level.
+	 */
+	private static ValidationLevel fromProperty(String value) {
+		if (value != null) {
+			for (ValidationLevel level : values()) {
+				if (level.name().equalsIgnoreCase(value.trim())) {
+					return level;
+				}
+			}
+		}
+		return CONSTRUCTION;
+	}
+}
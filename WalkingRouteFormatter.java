@@ -1,6 +1,6 @@
 package homework1;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
 import java.util.Iterator;
 
 /**
@@ -25,7 +25,11 @@ import java.util.Iterator;
  * be reported to the nearest minute. Each line should be terminated by a
  * newline and should include no extra spaces other than those shown above.
  **/
-public class WalkingRouteFormatter extends RouteFormatter {
+public class WalkingRouteFormatter extends RouteFormatter implements StepFormatter {
+
+	/** The walking speed assumed by the directions, in minutes per kilometer. **/
+	public static final double MINUTES_PER_KILOMETER = 20;
+
 
   	/**
      * Computes a single line of a multi-line directions String that
@@ -53,30 +57,52 @@ public class WalkingRouteFormatter extends RouteFormatter {
      * above.
      **/
   	public String computeLine(GeoFeature geoFeature, double origHeading) {
-  		
-		// Implementation hint:
-		// You may find the class java.text.DecimalFormat useful when
-		// implementing this method. More info can be found at:
-		// http://docs.oracle.com/javase/tutorial/java/data/numberformat.html
-		// and at:
-		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
-					 
+  		return lineToString(geoFeature, origHeading);
+  	}
+
+
+  	/**
+     * Appends the lines computed by computeLine() for geoFeature to out,
+     * one segment at a time, without building intermediate Strings.
+     * @requires out != null && 0 <= origHeading < 360
+     * @param out the destination of the directions.
+     * @param geoFeature the geographical feature to traverse.
+     * @param origHeading the initial heading.
+     * @throws IOException if out throws IOException.
+     **/
+  	public void appendLine(Appendable out, GeoFeature geoFeature, double origHeading)
+  			throws IOException {
+
 		double direction=origHeading;
 		Iterator<GeoSegment> it = geoFeature.getGeoSegments();
-		String format="";
-		String heading;
 		
 		while(it.hasNext()){
 			GeoSegment gs= it.next();
-			heading = getTurnString(direction,gs.getHeading());
-			direction=gs.getHeading();
-			double length = gs.getLength();
-			int minutes = (int) Math.round(length*20);
-			String streetName = gs.getName();
-			// foramting the sentence
-			format += heading + " onto " + streetName + " and walk for " +minutes+
-					" minutes."+"\n";
+			double segmentHeading = gs.getHeading();
+			String heading = getTurnString(direction,segmentHeading);
+			direction=segmentHeading;
+			appendStep(out, heading, gs.getName(), gs.getLength());
 		}
-		return format;
+  	}
+
+
+  	/**
+     * Appends the line of walking directions for one segment to out.
+     * @requires out != null && turn != null && name != null && length >= 0
+     * @param out the destination of the line.
+     * @param turn the turn onto the segment, as returned by getTurnString().
+     * @param name the name of the segment.
+     * @param length the length of the segment, in kilometers.
+     * @effects appends to out a line such as
+     * 			"Turn left onto Hagalil and walk for 27 minutes.\n".
+     * @throws IOException if out throws IOException.
+     **/
+  	public void appendStep(Appendable out, String turn, String name, double length)
+  			throws IOException {
+		int minutes = (int) Math.round(length*MINUTES_PER_KILOMETER);
+		// foramting the sentence
+		out.append(turn).append(" onto ").append(name).append(" and walk for ");
+		appendDigits(out, minutes);
+		out.append(" minutes.\n");
   	}
 }
@@ -24,6 +24,64 @@ public class WalkingRouteFormatterTest {
 			System.out.println("Test passed correctly");
 		else
 			System.out.println("Test not passed correctly");
+
+		StringBuilder streamed = new StringBuilder();
+		try {
+			mDirections.computeDirections(mShortRoute, 0, streamed);
+		} catch (java.io.IOException e) {
+			streamed.setLength(0);
+		}
+		if (streamed.toString().equals(directions))
+			System.out.println("Streaming test passed correctly");
+		else
+			System.out.println("Streaming test not passed correctly");
+
+		// around the example network, through features of several segments.
+		GeoSegment[] example = ExampleGeoSegments.segments;
+		Route loop = new Route(example[0]);
+		for (int i: new int[] {1, 2, 3, 4, 5, 7, 8, 9, 10, 11, 12}) {
+			loop = loop.addSegment(example[i]);
+		}
+		DrivingRouteFormatter driving = new DrivingRouteFormatter();
+		CompositeRouteFormatter composite = new CompositeRouteFormatter(mDirections, driving,
+			(out, turn, name, length) -> out.append(name).append('\n'));
+		boolean same = true;
+		for (double heading: new double[] {0, 45, 181.5, 359}) {
+			String[] all = composite.computeDirections(loop, heading);
+			same &= all.length == 3 &&
+				all[0].equals(mDirections.computeDirections(loop, heading)) &&
+				all[1].equals(driving.computeDirections(loop, heading)) &&
+				all[2].split("\n").length == loop.getSegmentCount();
+		}
+		// modes that name their turns differently keep their names.
+		DrivingRouteFormatter terse = new DrivingRouteFormatter() {
+			protected String getTurnString(double origHeading, double newHeading) {
+				return super.getTurnString(origHeading, newHeading).replace("Turn ", "");
+			}
+		};
+		same &= new CompositeRouteFormatter(terse).computeDirections(loop, 45)[0]
+			.equals(terse.computeDirections(loop, 45));
+		if (same)
+			System.out.println("Composite test passed correctly");
+		else
+			System.out.println("Composite test not passed correctly");
+
+		IncrementalDirections incremental = new IncrementalDirections(45, mDirections, terse);
+		Route prefix = null;
+		boolean incrementalSame = incremental.getDirections(0).isEmpty();
+		for (int i: new int[] {0, 1, 2, 3, 4, 5, 7, 8, 9, 10, 11, 12}) {
+			prefix = prefix == null ? new Route(example[i]) : prefix.addSegment(example[i]);
+			incremental.addSegment(example[i]);
+			String walking = mDirections.computeDirections(prefix, 45);
+			incrementalSame &= incremental.getRoute().equals(prefix) &&
+				incremental.getDirections(0).equals(walking) &&
+				incremental.getDirections(1).equals(terse.computeDirections(prefix, 45)) &&
+				walking.endsWith(incremental.getLine(0, incremental.getSegmentCount() - 1));
+		}
+		if (incrementalSame)
+			System.out.println("Incremental test passed correctly");
+		else
+			System.out.println("Incremental test not passed correctly");
 	}
   	
   	